@@ -0,0 +1,94 @@
+package top.sanscraft.trappedtnt.benchmark;
+
+import org.bukkit.Difficulty;
+import org.bukkit.util.BoundingBox;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import top.sanscraft.trappedtnt.damage.CollisionShapes;
+import top.sanscraft.trappedtnt.damage.ExplosionDamage;
+import top.sanscraft.trappedtnt.damage.ExposureCalculator;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the unshielded damage calculation for one shield-blocking player.
+ * The terrain is a flat floor with a wall and a row of slabs between the blast and
+ * the player, so rays hit full blocks, partial shapes and open air.
+ * firstVictim builds a fresh calculator each time, as for the first player hit by a blast;
+ * laterVictim reuses one, as for every further player of the same blast.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExplosionDamageBenchmark {
+    
+    private static final List<BoundingBox> FULL_BLOCK = List.of(new BoundingBox(0, 0, 0, 1, 1, 1));
+    private static final List<BoundingBox> BOTTOM_SLAB = List.of(new BoundingBox(0, 0, 0, 1, 0.5, 1));
+    private static final float POWER = 4.0f;
+    
+    /** Horizontal distance between the blast and the player */
+    @Param({"2.5", "5.5"})
+    private double distance;
+    
+    private final CollisionShapes terrain = ExplosionDamageBenchmark::terrainAt;
+    private final double centerX = 0.5;
+    private final double centerY = 64.06125;
+    private final double centerZ = 0.5;
+    private ExposureCalculator shared;
+    private double playerX;
+    private double playerZ;
+    private BoundingBox playerBox;
+    
+    @Setup
+    public void setUp() {
+        playerX = centerX + distance;
+        playerZ = centerZ;
+        playerBox = new BoundingBox(playerX - 0.3, 64.0, playerZ - 0.3, playerX + 0.3, 65.8, playerZ + 0.3);
+        shared = newCalculator();
+    }
+    
+    /**
+     * Floor below y 64, a wall one block high at x 2 and bottom slabs at x 4
+     */
+    private static Collection<BoundingBox> terrainAt(int x, int y, int z) {
+        if (y < 64) {
+            return FULL_BLOCK;
+        }
+        if (y == 64 && x == 2 && (z & 1) == 0) {
+            return FULL_BLOCK;
+        }
+        if (y == 64 && x == 4) {
+            return BOTTOM_SLAB;
+        }
+        return Collections.emptyList();
+    }
+    
+    private ExposureCalculator newCalculator() {
+        return new ExposureCalculator(terrain, -64, 320, centerX, centerY, centerZ);
+    }
+    
+    @Benchmark
+    public double firstVictim() {
+        return ExplosionDamage.calculate(newCalculator(), POWER, playerX, 64.0, playerZ, playerBox, Difficulty.NORMAL);
+    }
+    
+    @Benchmark
+    public double laterVictim() {
+        return ExplosionDamage.calculate(shared, POWER, playerX, 64.0, playerZ, playerBox, Difficulty.NORMAL);
+    }
+}
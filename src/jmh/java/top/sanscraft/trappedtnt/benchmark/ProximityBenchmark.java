@@ -0,0 +1,112 @@
+package top.sanscraft.trappedtnt.benchmark;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.ServerMock;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import top.sanscraft.trappedtnt.tracking.ArmedTrap;
+import top.sanscraft.trappedtnt.tracking.PlayerCellCache;
+import top.sanscraft.trappedtnt.tracking.TrapRegistry;
+
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the onPlayerMove proximity check for one move by every online player.
+ * Traps and players are scattered over a square area with a fixed seed; most players
+ * are not near a trap, as on a live server. Nothing is triggered, so every invocation
+ * does the same work. Stub TNT entities add a small constant cost per inspected trap.
+ * The filtered variant puts the per-player cell cache in front, as for moves that stay in
+ * the cell of the player's previous move.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProximityBenchmark {
+    
+    private static final double TRIGGER_RADIUS = 1.5;
+    
+    @Param({"100", "1000", "10000"})
+    private int traps;
+    
+    @Param({"10", "100", "500"})
+    private int players;
+    
+    /** Edge length of the square the traps and players are scattered over */
+    @Param({"1024"})
+    private int area;
+    
+    private World world;
+    private TrapRegistry registry;
+    private double[] playerPositions;
+    private Player[] onlinePlayers;
+    private PlayerCellCache playerCells;
+    
+    @Setup
+    public void setUp() {
+        ServerMock server = MockBukkit.mock();
+        world = server.addSimpleWorld("world");
+        registry = new TrapRegistry();
+        Random random = new Random(42);
+        
+        for (int i = 0; i < traps; i++) {
+            int x = random.nextInt(area) - area / 2;
+            int y = 60 + random.nextInt(8);
+            int z = random.nextInt(area) - area / 2;
+            Location block = new Location(world, x, y, z);
+            registry.register(new ArmedTrap(StubEntities.primedTnt(i, world, x + 0.5, y, z + 0.5), UUID.randomUUID(), block), true);
+        }
+        
+        playerPositions = new double[players * 3];
+        onlinePlayers = new Player[players];
+        playerCells = new PlayerCellCache(1, registry::hasArmedAround);
+        for (int i = 0; i < players; i++) {
+            onlinePlayers[i] = server.addPlayer();
+            playerPositions[i * 3] = random.nextDouble() * area - area / 2.0;
+            playerPositions[i * 3 + 1] = 60 + random.nextDouble() * 8;
+            playerPositions[i * 3 + 2] = random.nextDouble() * area - area / 2.0;
+        }
+    }
+    
+    @TearDown
+    public void tearDown() {
+        MockBukkit.unmock();
+    }
+    
+    @Benchmark
+    public void movesOfAllPlayers(Blackhole blackhole) {
+        for (int i = 0; i < playerPositions.length; i += 3) {
+            blackhole.consume(registry.findArmedWithin(world, playerPositions[i], playerPositions[i + 1], playerPositions[i + 2], TRIGGER_RADIUS));
+        }
+    }
+    
+    @Benchmark
+    public void movesOfAllPlayersFiltered(Blackhole blackhole) {
+        for (int p = 0, i = 0; p < players; p++, i += 3) {
+            double x = playerPositions[i];
+            double z = playerPositions[i + 2];
+            if (playerCells.isClear(onlinePlayers[p], (int) Math.floor(x), (int) Math.floor(z))) {
+                continue;
+            }
+            blackhole.consume(registry.findArmedWithin(world, x, playerPositions[i + 1], z, TRIGGER_RADIUS));
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package top.sanscraft.trappedtnt.benchmark;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.ServerMock;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import top.sanscraft.trappedtnt.utils.RegionLookup;
+import top.sanscraft.trappedtnt.utils.WorldGuardIntegration;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the placement region check in BlockPlaceEvent with a stubbed region lookup.
+ * The stub tests the location against a list of cuboids, roughly what a small region
+ * manager does; cachedBlock measures a repeat placement at one block, uncachedBlocks
+ * walks more distinct blocks than the decision cache holds, so every check is a lookup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RegionCheckBenchmark {
+    
+    private static final int CACHE_SIZE = 4096;
+    private static final int DISTINCT_BLOCKS = CACHE_SIZE * 16;
+    private static final Set<String> ALLOWED = Set.of("arena", "pvp");
+    
+    private WorldGuardIntegration integration;
+    private Location[] blocks;
+    private Location repeated;
+    private int next;
+    
+    @Setup
+    public void setUp() {
+        ServerMock server = MockBukkit.mock();
+        World world = server.addSimpleWorld("world");
+        integration = new WorldGuardIntegration(MockBukkit.createMockPlugin(), new CuboidRegions());
+        integration.configureCache(CACHE_SIZE, 30);
+        
+        blocks = new Location[DISTINCT_BLOCKS];
+        for (int i = 0; i < DISTINCT_BLOCKS; i++) {
+            blocks[i] = new Location(world, i & 255, 64, i >> 8);
+        }
+        repeated = new Location(world, 10, 64, 10);
+    }
+    
+    @TearDown
+    public void tearDown() {
+        MockBukkit.unmock();
+    }
+    
+    @Benchmark
+    public boolean cachedBlock() {
+        return integration.canPlaceTrappedTnt(repeated, ALLOWED);
+    }
+    
+    @Benchmark
+    public boolean uncachedBlocks() {
+        Location location = blocks[next];
+        next = next + 1 == DISTINCT_BLOCKS ? 0 : next + 1;
+        return integration.canPlaceTrappedTnt(location, ALLOWED);
+    }
+    
+    /**
+     * A handful of named cuboids checked one by one
+     */
+    private static final class CuboidRegions implements RegionLookup {
+        private final String[] ids = {"spawn", "arena", "market", "pvp", "farm", "wild"};
+        private final int[][] bounds = {
+            {-64, -64, 64, 64},
+            {0, 0, 31, 31},
+            {100, 100, 180, 180},
+            {32, 32, 127, 127},
+            {-200, 0, -100, 100},
+            {128, 0, 255, 255}
+        };
+        
+        @Override
+        public boolean isInAnyRegion(Location location, Set<String> regionIds) {
+            int x = location.getBlockX();
+            int z = location.getBlockZ();
+            for (int i = 0; i < ids.length; i++) {
+                int[] box = bounds[i];
+                if (x >= box[0] && z >= box[1] && x <= box[2] && z <= box[3] && regionIds.contains(ids[i])) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
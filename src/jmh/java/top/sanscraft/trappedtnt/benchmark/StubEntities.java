@@ -0,0 +1,53 @@
+package top.sanscraft.trappedtnt.benchmark;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.TNTPrimed;
+
+import java.lang.reflect.Proxy;
+
+/**
+ * Minimal stand-ins for entities the benchmarks need in large numbers.
+ * Only the calls the trap index makes are answered; anything else throws.
+ */
+final class StubEntities {
+    
+    private StubEntities() {
+    }
+    
+    /**
+     * Creates a live primed TNT that stays at the given position
+     */
+    static TNTPrimed primedTnt(int entityId, World world, double x, double y, double z) {
+        return (TNTPrimed) Proxy.newProxyInstance(StubEntities.class.getClassLoader(), new Class<?>[] {TNTPrimed.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getEntityId":
+                    return entityId;
+                case "getWorld":
+                    return world;
+                case "isValid":
+                    return true;
+                case "isDead":
+                    return false;
+                case "getLocation":
+                    if (args == null) {
+                        return new Location(world, x, y, z);
+                    }
+                    Location into = (Location) args[0];
+                    into.setWorld(world);
+                    into.setX(x);
+                    into.setY(y);
+                    into.setZ(z);
+                    return into;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "TNTPrimed#" + entityId;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+}
@@ -0,0 +1,262 @@
+package top.sanscraft.trappedtnt.loadtest;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.ServerMock;
+import be.seeseemelk.mockbukkit.entity.PlayerMock;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.block.BlockState;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.inventory.EquipmentSlot;
+import org.bukkit.inventory.ItemStack;
+import top.sanscraft.trappedtnt.TrappedTnt;
+import top.sanscraft.trappedtnt.listeners.TrappedTntListener;
+import top.sanscraft.trappedtnt.metrics.PluginMetrics;
+import top.sanscraft.trappedtnt.scheduler.TickScheduler;
+import top.sanscraft.trappedtnt.scheduler.TimingWheel;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Whole-tick load test on a MockBukkit server.
+ * Simulated players place trapped TNT through the real BlockPlaceEvent handler, which arms it
+ * through the plugin's own scheduler, then walk scripted circles that fire PlayerMoveEvent.
+ * Per tick it records the time spent in the plugin's event handlers, the wall time of the
+ * whole simulated tick, the bytes allocated by the server thread and the tracked-state size.
+ * <p>
+ * Runs offline: {@code mvn -P benchmark test-compile exec:exec@load-test -Dload.args="--players 500"}.
+ * With {@code --max-handler-micros} it exits with status 1 when the 99th percentile of
+ * per-tick handler time exceeds the limit, so it can gate upgrades.
+ */
+public final class TickLoadTest {
+    
+    private int players = 300;
+    private int traps = 5000;
+    private int ticks = 1200;
+    private int placementsPerTick = 50;
+    private int area = 256;
+    private long seed = 42;
+    private String detectionMode = "move-event";
+    private boolean virtualTraps;
+    private double maxHandlerMicros = -1;
+    
+    private TickLoadTest() {
+    }
+    
+    public static void main(String[] args) {
+        TickLoadTest test = new TickLoadTest();
+        try {
+            test.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Options: --players N --traps N --ticks N --placements-per-tick N --area BLOCKS --seed N"
+                + " --detection move-event|tick-sweep --virtual-traps true|false --max-handler-micros N");
+            System.exit(2);
+        }
+        System.exit(test.run());
+    }
+    
+    private void parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + option);
+            }
+            String value = args[++i];
+            switch (option) {
+                case "--players":
+                    players = Integer.parseInt(value);
+                    break;
+                case "--traps":
+                    traps = Integer.parseInt(value);
+                    break;
+                case "--ticks":
+                    ticks = Integer.parseInt(value);
+                    break;
+                case "--placements-per-tick":
+                    placementsPerTick = Integer.parseInt(value);
+                    break;
+                case "--area":
+                    area = Integer.parseInt(value);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value);
+                    break;
+                case "--detection":
+                    detectionMode = value;
+                    break;
+                case "--virtual-traps":
+                    virtualTraps = Boolean.parseBoolean(value);
+                    break;
+                case "--max-handler-micros":
+                    maxHandlerMicros = Double.parseDouble(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + option);
+            }
+        }
+    }
+    
+    private int run() {
+        ServerMock server = MockBukkit.mock();
+        try {
+            return run(server);
+        } finally {
+            MockBukkit.unmock();
+        }
+    }
+    
+    private int run(ServerMock server) {
+        World world = server.addSimpleWorld("world");
+        TrappedTnt plugin = MockBukkit.load(TrappedTnt.class);
+        
+        // Keep every trap armed for the whole run and use the requested detection mode
+        plugin.getConfig().set("trapped-tnt.fuse-time", ticks + 200);
+        plugin.getConfig().set("trapped-tnt.detection-mode", detectionMode);
+        plugin.getConfig().set("trapped-tnt.virtual-traps", virtualTraps);
+        plugin.saveConfig();
+        server.dispatchCommand(server.getConsoleSender(), "trappedtnt reload");
+        
+        PluginMetrics metrics = plugin.getMetrics();
+        metrics.setEnabled(true);
+        TrappedTntListener listener = plugin.getTrappedTntListener();
+        TickScheduler scheduler = plugin.getTickScheduler();
+        ItemStack trappedTnt = plugin.getTntUtils().createTrappedTnt(1);
+        
+        Random random = new Random(seed);
+        PlayerMock[] simulated = new PlayerMock[players];
+        double[] centerX = new double[players];
+        double[] centerZ = new double[players];
+        double[] radius = new double[players];
+        double[] phase = new double[players];
+        for (int i = 0; i < players; i++) {
+            simulated[i] = server.addPlayer();
+            centerX[i] = random.nextDouble() * area - area / 2.0;
+            centerZ[i] = random.nextDouble() * area - area / 2.0;
+            radius[i] = 4 + random.nextDouble() * 12;
+            phase[i] = random.nextDouble() * Math.PI * 2;
+            simulated[i].teleport(new Location(world, centerX[i] + radius[i], 64, centerZ[i]));
+        }
+        
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long[] handlerNanos = new long[ticks];
+        long[] tickNanos = new long[ticks];
+        long[] allocatedBytes = new long[ticks];
+        int placed = 0;
+        int peakTracked = 0;
+        int peakArmed = 0;
+        int peakPending = 0;
+        long previousHandlerTotal = handlerTotal(metrics);
+        
+        for (int tick = 0; tick < ticks; tick++) {
+            long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            
+            // Placements, spread over the area and made by whoever is next in line; occupied blocks are skipped
+            for (int i = 0; i < placementsPerTick && placed < traps; i++, placed++) {
+                PlayerMock player = simulated[placed % players];
+                Block block = world.getBlockAt(random.nextInt(area) - area / 2, 64, random.nextInt(area) - area / 2);
+                if (block.getType() != Material.AIR) {
+                    continue;
+                }
+                BlockState replaced = block.getState();
+                block.setType(Material.TNT);
+                BlockPlaceEvent event = new BlockPlaceEvent(block, replaced, block.getRelative(BlockFace.DOWN), trappedTnt, player, true, EquipmentSlot.HAND);
+                server.getPluginManager().callEvent(event);
+                if (event.isCancelled()) {
+                    block.setType(Material.AIR);
+                }
+            }
+            
+            // Every player walks a little further along its circle, about walking speed
+            for (int i = 0; i < players; i++) {
+                double angle = phase[i] + tick * 0.2 / radius[i];
+                Location to = new Location(world, centerX[i] + Math.cos(angle) * radius[i], 64, centerZ[i] + Math.sin(angle) * radius[i]);
+                simulated[i].simulatePlayerMove(to);
+            }
+            
+            // Scheduled tasks: arming, expiry, the proximity sweep and the metrics tick
+            server.getScheduler().performOneTick();
+            
+            tickNanos[tick] = System.nanoTime() - start;
+            allocatedBytes[tick] = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+            long handlerTotal = handlerTotal(metrics);
+            handlerNanos[tick] = handlerTotal - previousHandlerTotal;
+            previousHandlerTotal = handlerTotal;
+            
+            peakTracked = Math.max(peakTracked, listener.getTrackedTrapCount());
+            peakArmed = Math.max(peakArmed, listener.getActiveTrapCount());
+            int pending = 0;
+            for (TimingWheel.Kind kind : TimingWheel.Kind.values()) {
+                pending += scheduler.getPending(kind);
+            }
+            peakPending = Math.max(peakPending, pending);
+        }
+        
+        if (placed > 0 && peakTracked == 0) {
+            System.err.println("No trap was armed; check the server log for errors from the arming task");
+            return 2;
+        }
+        
+        System.out.printf(Locale.ROOT, "TrappedTnt load test: %d players, %d placements, %d ticks, %s detection%s%n",
+            players, metrics.getCount(PluginMetrics.Counter.PLACEMENTS), ticks, detectionMode, virtualTraps ? ", virtual traps" : "");
+        printDistribution("Handler time per tick", handlerNanos, 1_000.0, "us");
+        printDistribution("Simulated tick time", tickNanos, 1_000.0, "us");
+        printDistribution("Allocated per tick", allocatedBytes, 1_024.0, "KiB");
+        for (PluginMetrics.Timer timer : PluginMetrics.Timer.values()) {
+            System.out.printf(Locale.ROOT, "  %-22s %8d calls, p99 %8.1f us, per tick avg %8.1f us / max %8.1f us%n",
+                timer.getDisplayName(), metrics.getHistogram(timer).getCount(), metrics.getHistogram(timer).getPercentile(99) / 1_000.0,
+                metrics.getAverageTickNanos(timer) / 1_000.0, metrics.getMaxTickNanos(timer) / 1_000.0);
+        }
+        System.out.printf(Locale.ROOT, "Peak tracked traps %d, armed %d, pending scheduled work %d; %d triggers%n",
+            peakTracked, peakArmed, peakPending, metrics.getCount(PluginMetrics.Counter.TRIGGERS));
+        
+        if (maxHandlerMicros >= 0) {
+            double p99 = percentile(handlerNanos, 99) / 1_000.0;
+            if (p99 > maxHandlerMicros) {
+                System.out.printf(Locale.ROOT, "FAIL: p99 handler time per tick %.1f us exceeds %.1f us%n", p99, maxHandlerMicros);
+                return 1;
+            }
+            System.out.printf(Locale.ROOT, "PASS: p99 handler time per tick %.1f us within %.1f us%n", p99, maxHandlerMicros);
+        }
+        return 0;
+    }
+    
+    /**
+     * Sums the time recorded by every top-level handler; the WorldGuard check runs inside
+     * the block place handler and is left out so it is not counted twice
+     */
+    private static long handlerTotal(PluginMetrics metrics) {
+        long total = 0;
+        for (PluginMetrics.Timer timer : PluginMetrics.Timer.values()) {
+            if (timer != PluginMetrics.Timer.WORLDGUARD_CHECK) {
+                total += metrics.getHistogram(timer).getTotal();
+            }
+        }
+        return total;
+    }
+    
+    private static void printDistribution(String name, long[] values, double scale, String unit) {
+        long sum = 0;
+        for (long value : values) {
+            sum += value;
+        }
+        System.out.printf(Locale.ROOT, "%-22s avg %9.1f, p50 %9.1f, p99 %9.1f, max %9.1f %s%n", name,
+            sum / (double) values.length / scale, percentile(values, 50) / scale, percentile(values, 99) / scale,
+            percentile(values, 100) / scale, unit);
+    }
+    
+    private static long percentile(long[] values, double percentile) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(sorted.length * percentile / 100.0);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+}
@@ -1,19 +1,50 @@
 package top.sanscraft.trappedtnt;
 
+import top.sanscraft.trappedtnt.config.Message;
+import top.sanscraft.trappedtnt.config.MessageCatalog;
+import top.sanscraft.trappedtnt.config.TrappedTntSettings;
+import top.sanscraft.trappedtnt.listeners.ChunkTrackingListener;
+import top.sanscraft.trappedtnt.listeners.RegionChangeListener;
+import top.sanscraft.trappedtnt.listeners.TrapBlockListener;
 import top.sanscraft.trappedtnt.listeners.TrappedTntListener;
+import top.sanscraft.trappedtnt.metrics.LatencyHistogram;
+import top.sanscraft.trappedtnt.metrics.MetricsSnapshot;
+import top.sanscraft.trappedtnt.metrics.PluginMetrics;
+import top.sanscraft.trappedtnt.metrics.PrometheusExporter;
+import top.sanscraft.trappedtnt.scheduler.PlatformScheduler;
+import top.sanscraft.trappedtnt.scheduler.TickScheduler;
+import top.sanscraft.trappedtnt.scheduler.TimingWheel;
+import top.sanscraft.trappedtnt.storage.TrapEventLog;
+import top.sanscraft.trappedtnt.storage.TrapJournal;
+import top.sanscraft.trappedtnt.storage.TrapRecord;
+import top.sanscraft.trappedtnt.tracking.EntityContactTask;
+import top.sanscraft.trappedtnt.tracking.ProximitySweepTask;
+import top.sanscraft.trappedtnt.tracking.TrapRecovery;
+import top.sanscraft.trappedtnt.utils.PlacementDecisionCache;
 import top.sanscraft.trappedtnt.utils.TrappedTntUtils;
 import top.sanscraft.trappedtnt.utils.WorldGuardIntegration;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
+import org.bukkit.World;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
 import org.bukkit.entity.Player;
+import org.bukkit.entity.TNTPrimed;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.logging.Level;
 import java.util.stream.Collectors;
 
 public class TrappedTnt extends JavaPlugin {
@@ -21,6 +52,17 @@ public class TrappedTnt extends JavaPlugin {
     private TrappedTntUtils tntUtils;
     private WorldGuardIntegration worldGuardIntegration;
     private TrappedTntListener trappedTntListener;
+    private ProximitySweepTask proximitySweepTask;
+    private EntityContactTask entityContactTask;
+    private PlatformScheduler platformScheduler;
+    private TickScheduler tickScheduler;
+    private TrapJournal trapJournal;
+    private TrapEventLog trapEventLog;
+    private PluginMetrics metrics;
+    private PrometheusExporter prometheusExporter;
+    private final TrapRecovery trapRecovery = new TrapRecovery();
+    private volatile TrappedTntSettings settings;
+    private volatile MessageCatalog messages;
 
     @Override
     public void onEnable() {
@@ -29,13 +71,37 @@ public class TrappedTnt extends JavaPlugin {
         
         // Save default config if it doesn't exist
         saveDefaultConfig();
+        loadSettings();
         
         // Initialize utilities
         tntUtils = new TrappedTntUtils(this);
         worldGuardIntegration = new WorldGuardIntegration(this);
+        worldGuardIntegration.configureCache(settings.getWorldGuardCacheSize(), settings.getWorldGuardCacheTtlSeconds());
+        trapJournal = new TrapJournal(new File(getDataFolder(), "traps.journal"), getLogger());
+        platformScheduler = PlatformScheduler.create(this);
+        if (platformScheduler.isRegionThreaded()) {
+            getLogger().info("Region-threaded server detected, scheduling trap work on region and entity schedulers.");
+        }
+        tickScheduler = new TickScheduler(this, platformScheduler);
+        tickScheduler.start();
+        trapEventLog = new TrapEventLog(new File(getDataFolder(), "event-log"), "trap-events", getLogger());
+        applyEventLog();
+        metrics = new PluginMetrics(platformScheduler);
+        prometheusExporter = new PrometheusExporter(platformScheduler, this::captureMetrics);
         
         // Register events
         registerEvents();
+        applyMetrics();
+        
+        // Resume tracking traps that were armed before the last shutdown
+        if (settings.isPersistenceEnabled()) {
+            recoverTraps();
+        }
+        
+        // Start the proximity sweep if tick-sweep detection is configured, and entity contact checks if entity types are
+        proximitySweepTask = new ProximitySweepTask(platformScheduler, trappedTntListener);
+        entityContactTask = new EntityContactTask(platformScheduler, trappedTntListener);
+        applyDetectionMode();
         
         // Register tab completer for the main command
         this.getCommand("trappedtnt").setTabCompleter(this);
@@ -54,9 +120,31 @@ public class TrappedTnt extends JavaPlugin {
     @Override
     public void onDisable() {
         // Plugin shutdown logic
+        if (proximitySweepTask != null) {
+            proximitySweepTask.stop();
+        }
+        if (entityContactTask != null) {
+            entityContactTask.stop();
+        }
+        if (tickScheduler != null) {
+            tickScheduler.stop();
+        }
         if (trappedTntListener != null) {
             trappedTntListener.cleanup();
         }
+        if (trapJournal != null) {
+            trapJournal.close();
+        }
+        if (trapEventLog != null) {
+            trapEventLog.stop();
+        }
+        if (prometheusExporter != null) {
+            prometheusExporter.stop();
+        }
+        if (metrics != null) {
+            metrics.setEnabled(false);
+        }
+        trapRecovery.clear();
         getLogger().info("TrappedTnt plugin has been disabled!");
         Bukkit.getConsoleSender().sendMessage(ChatColor.RED + "[TrappedTnt] Plugin unloaded!");
     }
@@ -65,6 +153,211 @@ public class TrappedTnt extends JavaPlugin {
         // Register event listeners here
         trappedTntListener = new TrappedTntListener(this);
         getServer().getPluginManager().registerEvents(trappedTntListener, this);
+        getServer().getPluginManager().registerEvents(new ChunkTrackingListener(trappedTntListener, trapRecovery, trapJournal), this);
+        getServer().getPluginManager().registerEvents(new TrapBlockListener(trappedTntListener), this);
+        
+        if (worldGuardIntegration.isWorldGuardEnabled()) {
+            getServer().getPluginManager().registerEvents(new RegionChangeListener(worldGuardIntegration), this);
+        }
+    }
+    
+    /**
+     * Replays the trap journal, re-attaching traps whose entities are already loaded
+     * and leaving the rest to be recovered as their chunks load
+     */
+    private void recoverTraps() {
+        List<TrapRecord> records;
+        try {
+            records = trapJournal.open();
+        } catch (IOException e) {
+            getLogger().log(Level.SEVERE, "Could not open the trap journal, armed traps will not be persisted", e);
+            return;
+        }
+        
+        int recovered = 0;
+        for (TrapRecord record : records) {
+            if (record.isVirtual()) {
+                // Virtual traps have no entity to wait for
+                trappedTntListener.restoreVirtualTrap(record);
+                recovered++;
+                continue;
+            }
+            if (platformScheduler.isRegionThreaded()) {
+                // Entities cannot be looked up off their region's thread; re-arm them as their chunks load
+                trapRecovery.add(record);
+                continue;
+            }
+            Entity entity = getServer().getEntity(record.getId());
+            if (entity instanceof TNTPrimed && entity.isValid()) {
+                trappedTntListener.trackRecovered((TNTPrimed) entity, record);
+                recovered++;
+            } else {
+                trapRecovery.add(record);
+            }
+        }
+        
+        if (!records.isEmpty()) {
+            getLogger().info("Recovered " + recovered + " armed trapped TNT, " + trapRecovery.size() + " waiting for their chunks to load");
+        }
+    }
+    
+    /**
+     * Builds a new settings snapshot and message catalogue from the loaded config and swaps them in
+     * @return the problems found while validating the config
+     */
+    private List<String> loadSettings() {
+        List<String> problems = new ArrayList<>();
+        settings = TrappedTntSettings.load(getConfig(), problems);
+        messages = MessageCatalog.load(getConfig());
+        for (String problem : problems) {
+            getLogger().warning("Invalid config value " + problem);
+        }
+        return problems;
+    }
+    
+    /**
+     * Gets the current settings snapshot
+     */
+    public TrappedTntSettings getSettings() {
+        return settings;
+    }
+    
+    /**
+     * Gets the current message catalogue
+     */
+    public MessageCatalog getMessages() {
+        return messages;
+    }
+    
+    /**
+     * Gets the shared trapped TNT item and entity helpers
+     */
+    public TrappedTntUtils getTntUtils() {
+        return tntUtils;
+    }
+    
+    /**
+     * Gets the listener that places, arms and tracks trapped TNT
+     */
+    public TrappedTntListener getTrappedTntListener() {
+        return trappedTntListener;
+    }
+    
+    /**
+     * Gets the journal armed traps are persisted to
+     */
+    public TrapJournal getTrapJournal() {
+        return trapJournal;
+    }
+    
+    /**
+     * Gets the handler timings and activity counters
+     */
+    public PluginMetrics getMetrics() {
+        return metrics;
+    }
+    
+    /**
+     * Gets the log trap activity is recorded to
+     */
+    public TrapEventLog getEventLog() {
+        return trapEventLog;
+    }
+    
+    /**
+     * Gets the scheduler for the running server's threading model
+     */
+    public PlatformScheduler getPlatformScheduler() {
+        return platformScheduler;
+    }
+    
+    /**
+     * Gets the scheduler that batches deferred trap work
+     */
+    public TickScheduler getTickScheduler() {
+        return tickScheduler;
+    }
+    
+    /**
+     * Gets the shared WorldGuard integration
+     */
+    public WorldGuardIntegration getWorldGuardIntegration() {
+        return worldGuardIntegration;
+    }
+    
+    /**
+     * Switches proximity detection between per-move-event checks and the repeating sweep,
+     * and starts or stops contact checks for the configured entity types
+     */
+    private void applyDetectionMode() {
+        boolean tickSweep = settings.getDetectionMode() == TrappedTntSettings.DetectionMode.TICK_SWEEP;
+        if (tickSweep && platformScheduler.isRegionThreaded()) {
+            getLogger().warning("tick-sweep detection is not supported on region-threaded servers, using move-event detection");
+            tickSweep = false;
+        }
+        if (tickSweep) {
+            proximitySweepTask.start(settings.getSweepIntervalTicks(), settings.getSweepMaxPlayers());
+            trappedTntListener.setMoveEventDetection(false);
+        } else {
+            proximitySweepTask.stop();
+            trappedTntListener.setMoveEventDetection(true);
+        }
+        
+        Set<EntityType> contactTypes = settings.getContactEntityTypes();
+        if (!contactTypes.isEmpty() && platformScheduler.isRegionThreaded()) {
+            getLogger().warning("contact-entities is not supported on region-threaded servers, only players will trigger traps");
+            contactTypes = Set.of();
+        }
+        if (contactTypes.isEmpty()) {
+            entityContactTask.stop();
+        } else {
+            entityContactTask.start(contactTypes, settings.getContactTrapsPerTick());
+        }
+    }
+
+    /**
+     * Starts or stops the event log to match the settings, picking up new buffer and rotation sizes
+     */
+    private void applyEventLog() {
+        if (settings.isEventLogEnabled()) {
+            trapEventLog.start(settings.getEventLogBufferSize(), settings.getEventLogMaxFileSizeKb() * 1024L, settings.getEventLogMaxFiles());
+        } else {
+            trapEventLog.stop();
+        }
+    }
+
+    /**
+     * Starts or stops stats recording and the metrics exporter to match the settings
+     */
+    private void applyMetrics() {
+        boolean exporterEnabled = settings.isMetricsExporterEnabled();
+        metrics.setEnabled(settings.isStatsEnabled() || exporterEnabled);
+        
+        prometheusExporter.stop();
+        if (exporterEnabled) {
+            String host = settings.getMetricsExporterHost();
+            int port = settings.getMetricsExporterPort();
+            try {
+                prometheusExporter.start(host, port);
+                getLogger().info("Serving metrics on http://" + host + ":" + port + "/metrics");
+            } catch (IOException e) {
+                getLogger().log(Level.WARNING, "Could not start the metrics exporter on " + host + ":" + port, e);
+            }
+        }
+    }
+    
+    /**
+     * Captures the current metrics for the exporter; called on the main thread
+     */
+    private MetricsSnapshot captureMetrics() {
+        Map<String, Integer> armedByWorld = new HashMap<>();
+        for (Map.Entry<UUID, Integer> entry : trappedTntListener.getActiveTrapCountsByWorld().entrySet()) {
+            World world = Bukkit.getWorld(entry.getKey());
+            if (world != null) {
+                armedByWorld.put(world.getName(), entry.getValue());
+            }
+        }
+        return new MetricsSnapshot(metrics, armedByWorld, trappedTntListener.getTrackedTrapCount(), trapRecovery.size());
     }
 
     @Override
@@ -83,22 +376,51 @@ public class TrappedTnt extends JavaPlugin {
                     
                 case "reload":
                     if (!sender.hasPermission("trappedtnt.admin")) {
-                        sender.sendMessage(ChatColor.RED + "You don't have permission to reload the plugin!");
+                        messages.get(Message.NO_PERMISSION).send(sender);
                         return true;
                     }
                     reloadConfig();
-                    sender.sendMessage(ChatColor.GREEN + "TrappedTnt configuration reloaded!");
+                    List<String> problems = loadSettings();
+                    applyDetectionMode();
+                    applyEventLog();
+                    applyMetrics();
+                    worldGuardIntegration.configureCache(settings.getWorldGuardCacheSize(), settings.getWorldGuardCacheTtlSeconds());
+                    messages.get(Message.PLUGIN_RELOADED).send(sender);
+                    for (String problem : problems) {
+                        sender.sendMessage(ChatColor.YELLOW + "Invalid config value " + problem);
+                    }
+                    return true;
+                    
+                case "status":
+                    if (!sender.hasPermission("trappedtnt.admin")) {
+                        messages.get(Message.NO_PERMISSION).send(sender);
+                        return true;
+                    }
+                    showStatus(sender);
+                    return true;
+                    
+                case "stats":
+                    if (!sender.hasPermission("trappedtnt.admin")) {
+                        messages.get(Message.NO_PERMISSION).send(sender);
+                        return true;
+                    }
+                    if (args.length >= 2 && args[1].equalsIgnoreCase("reset")) {
+                        metrics.reset();
+                        sender.sendMessage(ChatColor.GREEN + "TrappedTnt statistics reset.");
+                    } else {
+                        showStats(sender);
+                    }
                     return true;
                     
                 case "give":
                     if (!sender.hasPermission("trappedtnt.give")) {
-                        sender.sendMessage(ChatColor.RED + "You don't have permission to give trapped TNT!");
+                        messages.get(Message.NO_PERMISSION).send(sender);
                         return true;
                     }
                     return handleGiveCommand(sender, args);
                     
                 default:
-                    sender.sendMessage(ChatColor.RED + "Unknown command. Use /trappedtnt help for available commands");
+                    messages.get(Message.INVALID_COMMAND).send(sender);
                     return true;
             }
         }
@@ -114,9 +436,69 @@ public class TrappedTnt extends JavaPlugin {
         }
         if (sender.hasPermission("trappedtnt.admin")) {
             sender.sendMessage(ChatColor.YELLOW + "/trappedtnt reload - Reload plugin configuration");
+            sender.sendMessage(ChatColor.YELLOW + "/trappedtnt status - Show tracked traps, pending work and cache statistics");
+            sender.sendMessage(ChatColor.YELLOW + "/trappedtnt stats [reset] - Show or reset handler timings and counters");
+        }
+    }
+    
+    private void showStatus(CommandSender sender) {
+        sender.sendMessage(ChatColor.GOLD + "=== TrappedTnt Status ===");
+        sender.sendMessage(ChatColor.YELLOW + "Armed traps: " + ChatColor.WHITE + trappedTntListener.getActiveTrapCount()
+            + " (" + trappedTntListener.getVirtualTrapCount() + " virtual)");
+        sender.sendMessage(ChatColor.YELLOW + "Entity contact: " + ChatColor.WHITE
+            + (entityContactTask.isRunning() ? settings.getContactEntityTypes().size() + " entity types" : "players only"));
+        sender.sendMessage(ChatColor.YELLOW + "Dormant traps (unloaded chunks): " + ChatColor.WHITE + trapRecovery.size());
+        sender.sendMessage(ChatColor.YELLOW + "Pending work: " + ChatColor.WHITE
+            + tickScheduler.getPending(TimingWheel.Kind.ARMING) + " arming, "
+            + tickScheduler.getPending(TimingWheel.Kind.EXPIRY) + " expiry, "
+            + tickScheduler.getPending(TimingWheel.Kind.KNOCKBACK) + " knockback, "
+            + tickScheduler.getPending(TimingWheel.Kind.DETONATION) + " detonation");
+        if (trapEventLog.isRunning()) {
+            sender.sendMessage(ChatColor.YELLOW + "Event log: " + ChatColor.WHITE + trapEventLog.getWritten() + " written, "
+                + trapEventLog.getDropped() + " dropped");
+        }
+        
+        if (worldGuardIntegration.isWorldGuardEnabled()) {
+            PlacementDecisionCache cache = worldGuardIntegration.getDecisionCache();
+            long lookups = cache.getHits() + cache.getMisses();
+            double hitRate = lookups == 0 ? 0.0 : cache.getHits() * 100.0 / lookups;
+            sender.sendMessage(ChatColor.YELLOW + "WorldGuard cache: " + ChatColor.WHITE + cache.getHits() + " hits, "
+                + cache.getMisses() + " misses (" + String.format("%.1f", hitRate) + "% hit rate)");
+        }
+    }
+    
+    private void showStats(CommandSender sender) {
+        if (!metrics.isEnabled() && metrics.getTicks() == 0) {
+            sender.sendMessage(ChatColor.YELLOW + "Statistics are disabled. Set stats.enabled to true in config.yml and reload.");
+            return;
+        }
+        
+        sender.sendMessage(ChatColor.GOLD + "=== TrappedTnt Stats (" + metrics.getTicks() + " ticks) ===");
+        for (PluginMetrics.Timer timer : PluginMetrics.Timer.values()) {
+            LatencyHistogram histogram = metrics.getHistogram(timer);
+            sender.sendMessage(ChatColor.YELLOW + timer.getDisplayName() + ": " + ChatColor.WHITE + histogram.getCount() + " calls, p50 "
+                + formatMicros(histogram.getPercentile(50)) + ", p99 " + formatMicros(histogram.getPercentile(99))
+                + ", max " + formatMicros(histogram.getMax()) + ", per tick avg " + formatMicros(metrics.getAverageTickNanos(timer))
+                + " / max " + formatMicros(metrics.getMaxTickNanos(timer)));
+        }
+        
+        StringBuilder counts = new StringBuilder();
+        for (PluginMetrics.Counter counter : PluginMetrics.Counter.values()) {
+            if (counts.length() > 0) {
+                counts.append(", ");
+            }
+            counts.append(counter.getDisplayName()).append(' ').append(metrics.getCount(counter));
+        }
+        sender.sendMessage(ChatColor.YELLOW + "Counters: " + ChatColor.WHITE + counts);
+        if (!metrics.isEnabled()) {
+            sender.sendMessage(ChatColor.GRAY + "Recording is disabled; these are the statistics recorded before it was turned off.");
         }
     }
     
+    private static String formatMicros(long nanos) {
+        return String.format("%.1f\u00b5s", nanos / 1000.0);
+    }
+    
     private boolean handleGiveCommand(CommandSender sender, String[] args) {
         // Usage: /trappedtnt give [player] [amount]
         Player targetPlayer = null;
@@ -152,14 +534,19 @@ public class TrappedTnt extends JavaPlugin {
             }
         }
         
-        // Create and give trapped TNT
+        // Create and give trapped TNT, on the target's own thread if regions tick separately
+        Player target = targetPlayer;
         ItemStack trappedTnt = tntUtils.createTrappedTnt(amount);
-        targetPlayer.getInventory().addItem(trappedTnt);
-        
-        // Send messages
-        String message = getConfig().getString("messages.trapped-tnt-given", "&aYou have been given &6{amount} &atrapped TNT!")
-            .replace("{amount}", String.valueOf(amount));
-        targetPlayer.sendMessage(ChatColor.translateAlternateColorCodes('&', message));
+        String givenMessage = messages.get(Message.TRAPPED_TNT_GIVEN).render("amount", String.valueOf(amount));
+        Runnable give = () -> {
+            target.getInventory().addItem(trappedTnt);
+            target.sendMessage(givenMessage);
+        };
+        if (platformScheduler.isRegionThreaded()) {
+            platformScheduler.runFor(target, give, null, 1L);
+        } else {
+            give.run();
+        }
         
         if (!sender.equals(targetPlayer)) {
             sender.sendMessage(ChatColor.GREEN + "Given " + amount + " trapped TNT to " + targetPlayer.getName());
@@ -183,6 +570,8 @@ public class TrappedTnt extends JavaPlugin {
             
             if (sender.hasPermission("trappedtnt.admin")) {
                 subcommands.add("reload");
+                subcommands.add("status");
+                subcommands.add("stats");
             }
             
             if (sender.hasPermission("trappedtnt.give")) {
@@ -195,6 +584,12 @@ public class TrappedTnt extends JavaPlugin {
                     .filter(s -> s.toLowerCase().startsWith(partial))
                     .collect(Collectors.toList());
                     
+        } else if (args.length == 2 && args[0].equalsIgnoreCase("stats")) {
+            // Second argument for "stats" command
+            if (sender.hasPermission("trappedtnt.admin") && "reset".startsWith(args[1].toLowerCase())) {
+                completions.add("reset");
+            }
+            
         } else if (args.length == 2 && args[0].equalsIgnoreCase("give")) {
             // Second argument for "give" command - player names
             if (sender.hasPermission("trappedtnt.give")) {
@@ -0,0 +1,39 @@
+package top.sanscraft.trappedtnt.config;
+
+/**
+ * Player-facing messages configurable under the messages section of config.yml
+ */
+public enum Message {
+    NO_PERMISSION("no-permission", "&cYou don't have permission to use this command!"),
+    PLUGIN_RELOADED("plugin-reloaded", "&aTrappedTnt configuration reloaded successfully!"),
+    INVALID_COMMAND("invalid-command", "&cInvalid command. Use /trappedtnt help for available commands."),
+    TRAPPED_TNT_GIVEN("trapped-tnt-given", "&aYou have been given &6{amount} &atrapped TNT!"),
+    TRAPPED_TNT_PLACED("trapped-tnt-placed", "&eTrapped TNT placed! Be careful..."),
+    REGION_NOT_ALLOWED("region-not-allowed", "&cYou cannot place trapped TNT in this area!"),
+    CHUNK_TRAP_LIMIT("chunk-trap-limit", "&cThis area already holds the maximum of {limit} trapped TNT!"),
+    PLAYER_TRAP_LIMIT("player-trap-limit", "&cYou already have the maximum of {limit} trapped TNT placed!"),
+    DETONATION_DELAYED("detonation-delayed", "&eToo many explosions at once, this trapped TNT goes off in a moment..."),
+    WORLDGUARD_NOT_FOUND("worldguard-not-found", "&eWorldGuard not detected. Trapped TNT works globally."),
+    EXPLOSION_DAMAGE("explosion-damage", "&cYou took explosion damage that bypassed your shield!"),
+    SHIELD_BLOCKING_DAMAGE("shield-blocking-damage", "&cYour shield was useless! You took &4300% damage &cfor trying to block the trapped TNT!"),
+    SHIELD_BYPASS_DAMAGE("shield-bypass-damage", "&cYour shield couldn't protect you from the trapped TNT explosion!");
+    
+    private final String path;
+    private final String defaultTemplate;
+    
+    Message(String key, String defaultTemplate) {
+        this.path = "messages." + key;
+        this.defaultTemplate = defaultTemplate;
+    }
+    
+    /**
+     * Gets the config path of this message
+     */
+    public String getPath() {
+        return path;
+    }
+    
+    public String getDefaultTemplate() {
+        return defaultTemplate;
+    }
+}
@@ -0,0 +1,39 @@
+package top.sanscraft.trappedtnt.config;
+
+import org.bukkit.ChatColor;
+import org.bukkit.configuration.ConfigurationSection;
+
+/**
+ * All player-facing messages, parsed once per config load with the prefix applied
+ */
+public final class MessageCatalog {
+    
+    private final MessageTemplate[] templates;
+    
+    private MessageCatalog(MessageTemplate[] templates) {
+        this.templates = templates;
+    }
+    
+    /**
+     * Parses every message from the config, falling back to the built-in default for missing ones
+     */
+    public static MessageCatalog load(ConfigurationSection config) {
+        String rawPrefix = config.getString("general.prefix", "&6[TrappedTnt]&r");
+        String prefix = rawPrefix == null || rawPrefix.isEmpty() ? "" : ChatColor.translateAlternateColorCodes('&', rawPrefix) + " ";
+        
+        Message[] messages = Message.values();
+        MessageTemplate[] templates = new MessageTemplate[messages.length];
+        for (Message message : messages) {
+            String raw = config.getString(message.getPath(), message.getDefaultTemplate());
+            templates[message.ordinal()] = MessageTemplate.parse(prefix, raw);
+        }
+        return new MessageCatalog(templates);
+    }
+    
+    /**
+     * Gets the parsed template for a message
+     */
+    public MessageTemplate get(Message message) {
+        return templates[message.ordinal()];
+    }
+}
@@ -0,0 +1,117 @@
+package top.sanscraft.trappedtnt.config;
+
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A message parsed once into literal and {placeholder} segments.
+ * Colour codes are translated at parse time, so rendering is plain concatenation.
+ */
+public final class MessageTemplate {
+    
+    private final String[] literals;
+    private final String[] placeholders;
+    private final String constant;
+    private final int literalLength;
+    
+    private MessageTemplate(String[] literals, String[] placeholders) {
+        this.literals = literals;
+        this.placeholders = placeholders;
+        this.constant = placeholders.length == 0 ? literals[0] : null;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+    
+    /**
+     * Parses a raw config message, translating '&' colour codes
+     * @param prefix Translated prefix placed in front of the message, or an empty string
+     */
+    public static MessageTemplate parse(String prefix, String raw) {
+        String text = ChatColor.translateAlternateColorCodes('&', raw);
+        List<String> literals = new ArrayList<>();
+        List<String> placeholders = new ArrayList<>();
+        
+        StringBuilder literal = new StringBuilder(prefix);
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            int end = c == '{' ? placeholderEnd(text, i) : -1;
+            if (end < 0) {
+                literal.append(c);
+                i++;
+                continue;
+            }
+            literals.add(literal.toString());
+            literal.setLength(0);
+            placeholders.add(text.substring(i + 1, end));
+            i = end + 1;
+        }
+        literals.add(literal.toString());
+        
+        return new MessageTemplate(literals.toArray(new String[0]), placeholders.toArray(new String[0]));
+    }
+    
+    /**
+     * Finds the closing brace of a {name} placeholder starting at the given index
+     * @return the index of the closing brace, or -1 if this is not a placeholder
+     */
+    private static int placeholderEnd(String text, int start) {
+        int i = start + 1;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (c == '}') {
+                return i > start + 1 ? i : -1;
+            }
+            if (!(Character.isLetterOrDigit(c) || c == '-' || c == '_')) {
+                return -1;
+            }
+            i++;
+        }
+        return -1;
+    }
+    
+    /**
+     * Renders a message without placeholders
+     */
+    public String render() {
+        if (constant != null) {
+            return constant;
+        }
+        return render(null, null);
+    }
+    
+    /**
+     * Renders the message, filling the named placeholder with the value.
+     * Other placeholders are left as written.
+     */
+    public String render(String placeholder, String value) {
+        if (constant != null) {
+            return constant;
+        }
+        
+        StringBuilder builder = new StringBuilder(literalLength + (value != null ? value.length() * placeholders.length : 0));
+        builder.append(literals[0]);
+        for (int i = 0; i < placeholders.length; i++) {
+            if (placeholders[i].equals(placeholder)) {
+                builder.append(value);
+            } else {
+                builder.append('{').append(placeholders[i]).append('}');
+            }
+            builder.append(literals[i + 1]);
+        }
+        return builder.toString();
+    }
+    
+    /**
+     * Sends the message without placeholders
+     */
+    public void send(CommandSender recipient) {
+        recipient.sendMessage(render());
+    }
+}
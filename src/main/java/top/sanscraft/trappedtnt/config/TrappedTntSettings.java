@@ -0,0 +1,389 @@
+package top.sanscraft.trappedtnt.config;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.entity.EntityType;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Immutable snapshot of config.yml.
+ * Built once on enable and on reload so event handlers never walk the YAML tree.
+ */
+public final class TrappedTntSettings {
+    
+    /**
+     * How player proximity to armed traps is detected
+     */
+    public enum DetectionMode {
+        MOVE_EVENT,
+        TICK_SWEEP;
+        
+        static DetectionMode fromConfig(String value) {
+            if (value == null) {
+                return null;
+            }
+            switch (value.toLowerCase(Locale.ROOT)) {
+                case "move-event":
+                    return MOVE_EVENT;
+                case "tick-sweep":
+                    return TICK_SWEEP;
+                default:
+                    return null;
+            }
+        }
+    }
+    
+    private final boolean debug;
+    private final int fuseTicks;
+    private final float explosionPower;
+    private final boolean instantExplosionOnContact;
+    private final boolean virtualTraps;
+    private final DetectionMode detectionMode;
+    private final long sweepIntervalTicks;
+    private final int sweepMaxPlayers;
+    private final Set<EntityType> contactEntityTypes;
+    private final int contactTrapsPerTick;
+    private final boolean bypassShields;
+    private final double shieldBlockingDamageMultiplier;
+    private final double shieldBlockingDamageThreshold;
+    private final boolean clusteringEnabled;
+    private final double clusterRadius;
+    private final int clusterWindowTicks;
+    private final float clusterMaxPower;
+    private final Set<String> allowedRegions;
+    private final int worldGuardCacheSize;
+    private final long worldGuardCacheTtlSeconds;
+    private final int maxTrapsPerChunk;
+    private final int maxTrapsPerPlayer;
+    private final int maxDetonationsPerTick;
+    private final boolean persistenceEnabled;
+    private final boolean eventLogEnabled;
+    private final int eventLogBufferSize;
+    private final int eventLogMaxFileSizeKb;
+    private final int eventLogMaxFiles;
+    private final boolean statsEnabled;
+    private final boolean metricsExporterEnabled;
+    private final String metricsExporterHost;
+    private final int metricsExporterPort;
+    
+    private TrappedTntSettings(ConfigurationSection config, List<String> problems) {
+        this.debug = config.getBoolean("general.debug", false);
+        this.fuseTicks = readInt(config, "trapped-tnt.fuse-time", 80, 1, problems);
+        this.explosionPower = (float) readDouble(config, "trapped-tnt.explosion-power", 4.0, 0.0, problems);
+        this.instantExplosionOnContact = config.getBoolean("trapped-tnt.instant-explosion-on-contact", true);
+        this.virtualTraps = config.getBoolean("trapped-tnt.virtual-traps", false);
+        
+        String mode = config.getString("trapped-tnt.detection-mode", "move-event");
+        DetectionMode parsedMode = DetectionMode.fromConfig(mode);
+        if (parsedMode == null) {
+            problems.add("trapped-tnt.detection-mode: unknown mode '" + mode + "', using move-event");
+            parsedMode = DetectionMode.MOVE_EVENT;
+        }
+        this.detectionMode = parsedMode;
+        this.sweepIntervalTicks = readInt(config, "trapped-tnt.sweep-interval-ticks", 1, 1, problems);
+        this.sweepMaxPlayers = readInt(config, "trapped-tnt.sweep-max-players", 0, 0, problems);
+        
+        Set<EntityType> contactTypes = EnumSet.noneOf(EntityType.class);
+        for (String name : config.getStringList("trapped-tnt.contact-entities")) {
+            EntityType type;
+            try {
+                type = EntityType.valueOf(name.toUpperCase(Locale.ROOT).replace('-', '_'));
+            } catch (IllegalArgumentException e) {
+                problems.add("trapped-tnt.contact-entities: unknown entity type '" + name + "', ignoring it");
+                continue;
+            }
+            if (type == EntityType.PLAYER || type == EntityType.PRIMED_TNT) {
+                problems.add("trapped-tnt.contact-entities: " + name + " cannot be listed, ignoring it");
+                continue;
+            }
+            contactTypes.add(type);
+        }
+        this.contactEntityTypes = Collections.unmodifiableSet(contactTypes);
+        this.contactTrapsPerTick = readInt(config, "trapped-tnt.contact-traps-per-tick", 256, 1, problems);
+        
+        this.bypassShields = config.getBoolean("trapped-tnt.bypass-shields", true);
+        this.shieldBlockingDamageMultiplier = readDouble(config, "trapped-tnt.shield-blocking-damage-multiplier", 3.0, 0.0, problems);
+        this.shieldBlockingDamageThreshold = readDouble(config, "trapped-tnt.shield-blocking-damage-threshold", 1.0, 0.0, problems);
+        
+        this.clusteringEnabled = config.getBoolean("trapped-tnt.clustering.enabled", false);
+        this.clusterRadius = readDouble(config, "trapped-tnt.clustering.radius", 4.0, 0.0, problems);
+        int window = readInt(config, "trapped-tnt.clustering.window-ticks", 2, 1, problems);
+        if (window > 20) {
+            problems.add("trapped-tnt.clustering.window-ticks: " + window + " is above the maximum of 20, using 2");
+            window = 2;
+        }
+        this.clusterWindowTicks = window;
+        this.clusterMaxPower = (float) readDouble(config, "trapped-tnt.clustering.max-power", 16.0, 1.0, problems);
+        
+        // WorldGuard region ids are always lower case
+        Set<String> regions = new HashSet<>();
+        for (String region : config.getStringList("worldguard.allowed-regions")) {
+            regions.add(region.toLowerCase(Locale.ROOT));
+        }
+        this.allowedRegions = Set.copyOf(regions);
+        this.worldGuardCacheSize = readInt(config, "worldguard.cache-size", 4096, 1, problems);
+        this.worldGuardCacheTtlSeconds = readInt(config, "worldguard.cache-ttl-seconds", 30, 0, problems);
+        
+        this.maxTrapsPerChunk = readInt(config, "limits.max-traps-per-chunk", 0, 0, problems);
+        this.maxTrapsPerPlayer = readInt(config, "limits.max-traps-per-player", 0, 0, problems);
+        this.maxDetonationsPerTick = readInt(config, "limits.max-detonations-per-tick", 0, 0, problems);
+        
+        this.persistenceEnabled = config.getBoolean("persistence.enabled", true);
+        
+        this.eventLogEnabled = config.getBoolean("event-log.enabled", false);
+        this.eventLogBufferSize = readInt(config, "event-log.buffer-size", 8192, 64, problems);
+        this.eventLogMaxFileSizeKb = readInt(config, "event-log.max-file-size-kb", 10240, 16, problems);
+        this.eventLogMaxFiles = readInt(config, "event-log.max-files", 5, 1, problems);
+        
+        this.statsEnabled = config.getBoolean("stats.enabled", false);
+        
+        this.metricsExporterEnabled = config.getBoolean("metrics-exporter.enabled", false);
+        this.metricsExporterHost = config.getString("metrics-exporter.host", "127.0.0.1");
+        int port = readInt(config, "metrics-exporter.port", 9464, 1, problems);
+        if (port > 65535) {
+            problems.add("metrics-exporter.port: " + port + " is above the maximum of 65535, using 9464");
+            port = 9464;
+        }
+        this.metricsExporterPort = port;
+    }
+    
+    /**
+     * Builds a settings snapshot from the config
+     * @param config The loaded plugin config
+     * @param problems Receives a description of every invalid value; defaults are used for those
+     */
+    public static TrappedTntSettings load(ConfigurationSection config, List<String> problems) {
+        return new TrappedTntSettings(config, problems);
+    }
+    
+    private static int readInt(ConfigurationSection config, String path, int def, int min, List<String> problems) {
+        if (config.isSet(path) && !config.isInt(path)) {
+            problems.add(path + ": '" + config.get(path) + "' is not a whole number, using " + def);
+            return def;
+        }
+        int value = config.getInt(path, def);
+        if (value < min) {
+            problems.add(path + ": " + value + " is below the minimum of " + min + ", using " + def);
+            return def;
+        }
+        return value;
+    }
+    
+    private static double readDouble(ConfigurationSection config, String path, double def, double min, List<String> problems) {
+        if (config.isSet(path) && !(config.isDouble(path) || config.isInt(path))) {
+            problems.add(path + ": '" + config.get(path) + "' is not a number, using " + def);
+            return def;
+        }
+        double value = config.getDouble(path, def);
+        if (value < min || Double.isNaN(value)) {
+            problems.add(path + ": " + value + " is below the minimum of " + min + ", using " + def);
+            return def;
+        }
+        return value;
+    }
+    
+    public boolean isDebug() {
+        return debug;
+    }
+    
+    /**
+     * Gets the trapped TNT fuse length in ticks
+     */
+    public int getFuseTicks() {
+        return fuseTicks;
+    }
+    
+    public float getExplosionPower() {
+        return explosionPower;
+    }
+    
+    /**
+     * Checks if trapped TNT detonating close together are merged into one explosion
+     */
+    public boolean isClusteringEnabled() {
+        return clusteringEnabled;
+    }
+    
+    /**
+     * Gets the distance from a cluster's first detonation within which later ones are merged into it
+     */
+    public double getClusterRadius() {
+        return clusterRadius;
+    }
+    
+    /**
+     * Gets the number of ticks a cluster collects detonations before it explodes
+     */
+    public int getClusterWindowTicks() {
+        return clusterWindowTicks;
+    }
+    
+    /**
+     * Gets the largest power a merged explosion can reach
+     */
+    public float getClusterMaxPower() {
+        return clusterMaxPower;
+    }
+    
+    public boolean isInstantExplosionOnContact() {
+        return instantExplosionOnContact;
+    }
+    
+    /**
+     * Checks if armed traps are kept as records next to their TNT block instead of as primed TNT entities
+     */
+    public boolean isVirtualTraps() {
+        return virtualTraps;
+    }
+    
+    public DetectionMode getDetectionMode() {
+        return detectionMode;
+    }
+    
+    public long getSweepIntervalTicks() {
+        return sweepIntervalTicks;
+    }
+    
+    /**
+     * Gets the number of players checked per proximity sweep, 0 for all
+     */
+    public int getSweepMaxPlayers() {
+        return sweepMaxPlayers;
+    }
+    
+    /**
+     * Gets the non-player entity types that trigger traps on contact, empty for players only
+     */
+    public Set<EntityType> getContactEntityTypes() {
+        return contactEntityTypes;
+    }
+    
+    /**
+     * Gets the number of armed traps checked for contact with other entities each tick
+     */
+    public int getContactTrapsPerTick() {
+        return contactTrapsPerTick;
+    }
+    
+    public boolean isBypassShields() {
+        return bypassShields;
+    }
+    
+    public double getShieldBlockingDamageMultiplier() {
+        return shieldBlockingDamageMultiplier;
+    }
+    
+    public double getShieldBlockingDamageThreshold() {
+        return shieldBlockingDamageThreshold;
+    }
+    
+    /**
+     * Gets the lower-case ids of the WorldGuard regions trapped TNT may be placed in, empty to allow everywhere
+     */
+    public Set<String> getAllowedRegions() {
+        return allowedRegions;
+    }
+    
+    /**
+     * Gets the maximum number of cached WorldGuard placement decisions
+     */
+    public int getWorldGuardCacheSize() {
+        return worldGuardCacheSize;
+    }
+    
+    /**
+     * Gets how long a cached placement decision stays valid, 0 until regions change
+     */
+    public long getWorldGuardCacheTtlSeconds() {
+        return worldGuardCacheTtlSeconds;
+    }
+    
+    /**
+     * Gets the number of tracked traps allowed in one chunk, 0 for no limit
+     */
+    public int getMaxTrapsPerChunk() {
+        return maxTrapsPerChunk;
+    }
+    
+    /**
+     * Gets the number of tracked traps one player can have placed, 0 for no limit
+     */
+    public int getMaxTrapsPerPlayer() {
+        return maxTrapsPerPlayer;
+    }
+    
+    /**
+     * Gets the number of triggered traps allowed to detonate in one tick, 0 for no limit
+     */
+    public int getMaxDetonationsPerTick() {
+        return maxDetonationsPerTick;
+    }
+    
+    /**
+     * Checks if armed traps are journaled to disk and recovered on startup
+     */
+    public boolean isPersistenceEnabled() {
+        return persistenceEnabled;
+    }
+    
+    /**
+     * Checks if trap activity is recorded to the CSV event log
+     */
+    public boolean isEventLogEnabled() {
+        return eventLogEnabled;
+    }
+    
+    /**
+     * Gets the number of events that can wait for the log writer before new ones are dropped
+     */
+    public int getEventLogBufferSize() {
+        return eventLogBufferSize;
+    }
+    
+    /**
+     * Gets the size in kilobytes at which the event log is rotated
+     */
+    public int getEventLogMaxFileSizeKb() {
+        return eventLogMaxFileSizeKb;
+    }
+    
+    /**
+     * Gets the number of event log files kept, including the current one
+     */
+    public int getEventLogMaxFiles() {
+        return eventLogMaxFiles;
+    }
+    
+    /**
+     * Checks if handler timings and activity counters are recorded for /trappedtnt stats
+     */
+    public boolean isStatsEnabled() {
+        return statsEnabled;
+    }
+    
+    /**
+     * Checks if plugin metrics are served in Prometheus format over HTTP
+     */
+    public boolean isMetricsExporterEnabled() {
+        return metricsExporterEnabled;
+    }
+    
+    /**
+     * Gets the address the metrics exporter binds to
+     */
+    public String getMetricsExporterHost() {
+        return metricsExporterHost;
+    }
+    
+    /**
+     * Gets the port the metrics exporter listens on
+     */
+    public int getMetricsExporterPort() {
+        return metricsExporterPort;
+    }
+}
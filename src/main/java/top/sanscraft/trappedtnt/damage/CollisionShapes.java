@@ -0,0 +1,17 @@
+package top.sanscraft.trappedtnt.damage;
+
+import org.bukkit.util.BoundingBox;
+
+import java.util.Collection;
+
+/**
+ * Source of block collision shapes for exposure rays
+ */
+public interface CollisionShapes {
+    
+    /**
+     * Gets the collision boxes of a block, relative to the block's corner
+     * @return the boxes, empty for air and for blocks in unloaded chunks
+     */
+    Collection<BoundingBox> getBoxes(int x, int y, int z);
+}
@@ -0,0 +1,99 @@
+package top.sanscraft.trappedtnt.damage;
+
+import org.bukkit.attribute.Attribute;
+import org.bukkit.attribute.AttributeInstance;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.entity.Player;
+import org.bukkit.event.entity.EntityDamageEvent;
+import org.bukkit.event.entity.EntityDamageEvent.DamageModifier;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.potion.PotionEffect;
+import org.bukkit.potion.PotionEffectType;
+
+/**
+ * Vanilla damage reductions for an explosion hitting a player, applied to a damage event
+ * whose base damage was replaced. The server works the modifiers out once, in order, from
+ * the original base damage; a blocked hit leaves nothing for armour and the rest to reduce,
+ * so they have to be worked out again when the shield's block is taken away.
+ */
+public final class DamageReductions {
+    
+    private DamageReductions() {
+    }
+    
+    /**
+     * Replaces the event's base damage and recalculates every reduction after it the way
+     * vanilla does for explosions: no shield block, then armour and toughness, Resistance,
+     * Protection and Blast Protection, and finally absorption hearts
+     */
+    @SuppressWarnings("deprecation")
+    public static void applyUnblocked(EntityDamageEvent event, Player player, double damage) {
+        event.setDamage(damage);
+        if (event.isApplicable(DamageModifier.BLOCKING)) {
+            event.setDamage(DamageModifier.BLOCKING, 0);
+        }
+        
+        double armored = afterArmor(damage, attribute(player, Attribute.GENERIC_ARMOR), attribute(player, Attribute.GENERIC_ARMOR_TOUGHNESS));
+        setModifier(event, DamageModifier.ARMOR, armored - damage);
+        
+        double resisted = afterResistance(armored, player.getPotionEffect(PotionEffectType.DAMAGE_RESISTANCE));
+        setModifier(event, DamageModifier.RESISTANCE, resisted - armored);
+        
+        double enchanted = afterProtection(resisted, player.getInventory().getArmorContents());
+        setModifier(event, DamageModifier.MAGIC, enchanted - resisted);
+        
+        double absorbed = Math.min(enchanted, player.getAbsorptionAmount());
+        setModifier(event, DamageModifier.ABSORPTION, -absorbed);
+    }
+    
+    /**
+     * Damage left after armour points, softened by toughness
+     */
+    public static double afterArmor(double damage, double armor, double toughness) {
+        double toughnessFactor = 2.0 + toughness / 4.0;
+        double effective = Math.max(armor * 0.2, Math.min(armor - damage / toughnessFactor, 20.0));
+        return damage * (1.0 - effective / 25.0);
+    }
+    
+    /**
+     * Damage left after the Resistance effect, 20% less per level
+     * @param resistance The effect, or null if the player does not have it
+     */
+    public static double afterResistance(double damage, PotionEffect resistance) {
+        if (resistance == null) {
+            return damage;
+        }
+        int level = resistance.getAmplifier() + 1;
+        return Math.max(damage * (25 - level * 5) / 25.0, 0.0);
+    }
+    
+    /**
+     * Damage left after Protection and Blast Protection on the worn armour
+     */
+    @SuppressWarnings("deprecation")
+    public static double afterProtection(double damage, ItemStack[] armor) {
+        if (damage <= 0.0) {
+            return damage;
+        }
+        int protection = 0;
+        for (ItemStack item : armor) {
+            if (item != null) {
+                protection += item.getEnchantmentLevel(Enchantment.PROTECTION_ENVIRONMENTAL);
+                protection += item.getEnchantmentLevel(Enchantment.PROTECTION_EXPLOSIONS) * 2;
+            }
+        }
+        return damage * (1.0 - Math.min(protection, 20) / 25.0);
+    }
+    
+    private static double attribute(Player player, Attribute attribute) {
+        AttributeInstance instance = player.getAttribute(attribute);
+        return instance != null ? instance.getValue() : 0.0;
+    }
+    
+    @SuppressWarnings("deprecation")
+    private static void setModifier(EntityDamageEvent event, DamageModifier modifier, double value) {
+        if (event.isApplicable(modifier)) {
+            event.setDamage(modifier, value);
+        }
+    }
+}
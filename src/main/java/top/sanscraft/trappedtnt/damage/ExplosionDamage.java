@@ -0,0 +1,46 @@
+package top.sanscraft.trappedtnt.damage;
+
+import org.bukkit.Difficulty;
+import org.bukkit.util.BoundingBox;
+
+/**
+ * Vanilla explosion damage to an entity, before armour, enchantments and blocking
+ */
+public final class ExplosionDamage {
+    
+    private ExplosionDamage() {
+    }
+    
+    /**
+     * Calculates explosion damage the way vanilla does: falloff with distance over twice
+     * the power, times the share of the entity's hitbox the blast can see, scaled for difficulty
+     * @param exposure The blast's exposure calculator, which also holds its centre
+     * @param x Entity position (feet), where vanilla measures falloff from
+     * @param box The entity's hitbox
+     */
+    public static double calculate(ExposureCalculator exposure, float power, double x, double y, double z, BoundingBox box, Difficulty difficulty) {
+        double radius = power * 2.0;
+        double dx = x - exposure.getCenterX();
+        double dy = y - exposure.getCenterY();
+        double dz = z - exposure.getCenterZ();
+        double distance = Math.sqrt(dx * dx + dy * dy + dz * dz) / radius;
+        if (distance > 1.0) {
+            return 0.0; // Too far away for any damage
+        }
+        
+        // Exposure is raytraced from the hitbox sample lattice to the centre
+        double impact = (1.0 - distance) * exposure.getExposure(box);
+        double damage = (int) ((impact * impact + impact) / 2.0 * 7.0 * radius + 1.0);
+        
+        switch (difficulty) {
+            case PEACEFUL:
+                return 0.0;
+            case EASY:
+                return Math.min(damage / 2.0 + 1.0, damage);
+            case HARD:
+                return damage * 1.5;
+            default:
+                return damage;
+        }
+    }
+}
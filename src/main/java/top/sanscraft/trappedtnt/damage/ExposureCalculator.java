@@ -0,0 +1,243 @@
+package top.sanscraft.trappedtnt.damage;
+
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.util.BoundingBox;
+import top.sanscraft.trappedtnt.utils.BlockKeys;
+import top.sanscraft.trappedtnt.utils.LongObjectMap;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Vanilla explosion exposure: the fraction of rays from a box's sample lattice to the
+ * explosion centre that no block collision shape blocks.
+ * One calculator serves one explosion; block shapes looked up for one victim are
+ * memoised and reused for every other victim of the same blast. Not thread-safe; the
+ * damage events of one explosion all fire on the thread that owns its region.
+ */
+public class ExposureCalculator {
+    
+    private static final Object EMPTY = new Object();
+    private static final Object FULL = new Object();
+    private static final int MAX_RAY_STEPS = 256;
+    
+    private final CollisionShapes blocks;
+    private final double centerX;
+    private final double centerY;
+    private final double centerZ;
+    private final int minHeight;
+    private final int maxHeight;
+    // Block key -> EMPTY, FULL or the absolute collision boxes as packed doubles
+    private final LongObjectMap<Object> shapes = new LongObjectMap<>();
+    
+    public ExposureCalculator(World world, double centerX, double centerY, double centerZ) {
+        this((x, y, z) -> collisionBoxes(world, x, y, z), world.getMinHeight(), world.getMaxHeight(), centerX, centerY, centerZ);
+    }
+    
+    /**
+     * @param blocks Where block shapes are read from; each block is asked for at most once
+     * @param minHeight Lowest block y that can block a ray
+     * @param maxHeight One above the highest block y that can block a ray
+     */
+    public ExposureCalculator(CollisionShapes blocks, int minHeight, int maxHeight, double centerX, double centerY, double centerZ) {
+        this.blocks = blocks;
+        this.centerX = centerX;
+        this.centerY = centerY;
+        this.centerZ = centerZ;
+        this.minHeight = minHeight;
+        this.maxHeight = maxHeight;
+    }
+    
+    public double getCenterX() {
+        return centerX;
+    }
+    
+    public double getCenterY() {
+        return centerY;
+    }
+    
+    public double getCenterZ() {
+        return centerZ;
+    }
+    
+    /**
+     * Gets the fraction of the box the explosion can see, from 0 to 1
+     */
+    public double getExposure(BoundingBox box) {
+        SampleLattice lattice = SampleLattice.forBox(box.getWidthX(), box.getHeight(), box.getWidthZ());
+        double minX = box.getMinX();
+        double minY = box.getMinY();
+        double minZ = box.getMinZ();
+        double sizeX = box.getWidthX();
+        double sizeY = box.getHeight();
+        double sizeZ = box.getWidthZ();
+        
+        int seen = 0;
+        for (double fx : lattice.x) {
+            double sx = minX + fx * sizeX + lattice.offsetX;
+            for (double fy : lattice.y) {
+                double sy = minY + fy * sizeY;
+                for (double fz : lattice.z) {
+                    double sz = minZ + fz * sizeZ + lattice.offsetZ;
+                    if (!isBlocked(sx, sy, sz)) {
+                        seen++;
+                    }
+                }
+            }
+        }
+        return (double) seen / lattice.size;
+    }
+    
+    /**
+     * Walks the blocks between a sample point and the centre, stopping at the first collision
+     */
+    private boolean isBlocked(double sx, double sy, double sz) {
+        double dx = centerX - sx;
+        double dy = centerY - sy;
+        double dz = centerZ - sz;
+        
+        int x = (int) Math.floor(sx);
+        int y = (int) Math.floor(sy);
+        int z = (int) Math.floor(sz);
+        int endX = (int) Math.floor(centerX);
+        int endY = (int) Math.floor(centerY);
+        int endZ = (int) Math.floor(centerZ);
+        
+        int stepX = dx > 0 ? 1 : -1;
+        int stepY = dy > 0 ? 1 : -1;
+        int stepZ = dz > 0 ? 1 : -1;
+        double deltaX = dx != 0 ? Math.abs(1.0 / dx) : Double.POSITIVE_INFINITY;
+        double deltaY = dy != 0 ? Math.abs(1.0 / dy) : Double.POSITIVE_INFINITY;
+        double deltaZ = dz != 0 ? Math.abs(1.0 / dz) : Double.POSITIVE_INFINITY;
+        // Ray parameter (0 at the sample, 1 at the centre) where the next block boundary is crossed
+        double nextX = dx > 0 ? (x + 1 - sx) * deltaX : dx < 0 ? (sx - x) * deltaX : Double.POSITIVE_INFINITY;
+        double nextY = dy > 0 ? (y + 1 - sy) * deltaY : dy < 0 ? (sy - y) * deltaY : Double.POSITIVE_INFINITY;
+        double nextZ = dz > 0 ? (z + 1 - sz) * deltaZ : dz < 0 ? (sz - z) * deltaZ : Double.POSITIVE_INFINITY;
+        
+        for (int i = 0; i < MAX_RAY_STEPS; i++) {
+            Object shape = shapeAt(x, y, z);
+            if (shape == FULL) {
+                return true;
+            }
+            if (shape != EMPTY && intersects((double[]) shape, sx, sy, sz, dx, dy, dz)) {
+                return true;
+            }
+            
+            if (x == endX && y == endY && z == endZ) {
+                return false;
+            }
+            
+            if (nextX <= nextY && nextX <= nextZ) {
+                if (nextX > 1.0) {
+                    return false;
+                }
+                x += stepX;
+                nextX += deltaX;
+            } else if (nextY <= nextZ) {
+                if (nextY > 1.0) {
+                    return false;
+                }
+                y += stepY;
+                nextY += deltaY;
+            } else {
+                if (nextZ > 1.0) {
+                    return false;
+                }
+                z += stepZ;
+                nextZ += deltaZ;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Checks the segment from the sample to the centre against packed boxes with a slab test
+     */
+    private static boolean intersects(double[] boxes, double sx, double sy, double sz, double dx, double dy, double dz) {
+        for (int i = 0; i < boxes.length; i += 6) {
+            double enter = Math.max(0.0, Math.max(slabEnter(sx, dx, boxes[i], boxes[i + 3]),
+                Math.max(slabEnter(sy, dy, boxes[i + 1], boxes[i + 4]), slabEnter(sz, dz, boxes[i + 2], boxes[i + 5]))));
+            double exit = Math.min(1.0, Math.min(slabExit(sx, dx, boxes[i], boxes[i + 3]),
+                Math.min(slabExit(sy, dy, boxes[i + 1], boxes[i + 4]), slabExit(sz, dz, boxes[i + 2], boxes[i + 5]))));
+            if (enter <= exit) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Gets the segment parameter where it enters one axis slab
+     */
+    private static double slabEnter(double start, double delta, double min, double max) {
+        if (delta == 0.0) {
+            return start >= min && start <= max ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        }
+        return Math.min((min - start) / delta, (max - start) / delta);
+    }
+    
+    /**
+     * Gets the segment parameter where it leaves one axis slab
+     */
+    private static double slabExit(double start, double delta, double min, double max) {
+        if (delta == 0.0) {
+            return start >= min && start <= max ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+        }
+        return Math.max((min - start) / delta, (max - start) / delta);
+    }
+    
+    private Object shapeAt(int x, int y, int z) {
+        if (y < minHeight || y >= maxHeight) {
+            return EMPTY;
+        }
+        
+        long key = BlockKeys.pack(x, y, z);
+        Object shape = shapes.get(key);
+        if (shape == null) {
+            shape = lookupShape(x, y, z);
+            shapes.put(key, shape);
+        }
+        return shape;
+    }
+    
+    private Object lookupShape(int x, int y, int z) {
+        // Collision boxes are relative to the block
+        Collection<BoundingBox> boxes = blocks.getBoxes(x, y, z);
+        if (boxes.isEmpty()) {
+            return EMPTY;
+        }
+        if (boxes.size() == 1) {
+            BoundingBox box = boxes.iterator().next();
+            if (box.getMinX() <= 0 && box.getMinY() <= 0 && box.getMinZ() <= 0
+                && box.getMaxX() >= 1 && box.getMaxY() >= 1 && box.getMaxZ() >= 1) {
+                return FULL;
+            }
+        }
+        
+        double[] packed = new double[boxes.size() * 6];
+        int i = 0;
+        for (BoundingBox box : boxes) {
+            packed[i++] = x + box.getMinX();
+            packed[i++] = y + box.getMinY();
+            packed[i++] = z + box.getMinZ();
+            packed[i++] = x + box.getMaxX();
+            packed[i++] = y + box.getMaxY();
+            packed[i++] = z + box.getMaxZ();
+        }
+        return packed;
+    }
+    
+    private static Collection<BoundingBox> collisionBoxes(World world, int x, int y, int z) {
+        // Never load chunks for an exposure check; unloaded blocks count as air like in vanilla
+        if (!world.isChunkLoaded(x >> 4, z >> 4)) {
+            return Collections.emptyList();
+        }
+        
+        Block block = world.getBlockAt(x, y, z);
+        if (block.getType().isAir()) {
+            return Collections.emptyList();
+        }
+        return block.getCollisionShape().getBoundingBoxes();
+    }
+}
@@ -0,0 +1,81 @@
+package top.sanscraft.trappedtnt.damage;
+
+import org.bukkit.entity.Player;
+import org.bukkit.util.Vector;
+import top.sanscraft.trappedtnt.scheduler.TickScheduler;
+import top.sanscraft.trappedtnt.scheduler.TimingWheel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Extra knockback for shield-blocking victims, applied in one pass on the next tick.
+ * Queuing it lets the explosion's own knockback land first, and a whole crowd of
+ * victims costs a single scheduled task. The queue itself is main-thread only; on
+ * region-threaded servers add() never touches it and instead schedules each impulse on
+ * the thread that owns its player.
+ */
+public class KnockbackQueue {
+    
+    private final TickScheduler scheduler;
+    private final Runnable flushTask = this::flush;
+    private final List<Player> players = new ArrayList<>();
+    // x, y, z impulse per queued player
+    private double[] impulses = new double[48];
+    
+    public KnockbackQueue(TickScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+    
+    /**
+     * Queues an impulse to add to a player's velocity next tick
+     */
+    public void add(Player player, double x, double y, double z) {
+        if (scheduler.isRegionThreaded()) {
+            scheduler.schedule(player, 1L, TimingWheel.Kind.KNOCKBACK, () -> push(player, x, y, z));
+            return;
+        }
+        
+        int index = players.size() * 3;
+        if (index + 3 > impulses.length) {
+            double[] grown = new double[impulses.length * 2];
+            System.arraycopy(impulses, 0, grown, 0, index);
+            impulses = grown;
+        }
+        impulses[index] = x;
+        impulses[index + 1] = y;
+        impulses[index + 2] = z;
+        players.add(player);
+        
+        if (players.size() == 1) {
+            scheduler.schedule(1L, TimingWheel.Kind.KNOCKBACK, flushTask);
+        }
+    }
+    
+    /**
+     * Gets the number of queued impulses
+     */
+    public int size() {
+        return players.size();
+    }
+    
+    public void clear() {
+        players.clear();
+    }
+    
+    private void flush() {
+        for (int i = 0, n = players.size(); i < n; i++) {
+            int index = i * 3;
+            push(players.get(i), impulses[index], impulses[index + 1], impulses[index + 2]);
+        }
+        players.clear();
+    }
+    
+    private static void push(Player player, double x, double y, double z) {
+        if (!player.isOnline() || player.isDead()) {
+            return;
+        }
+        Vector velocity = player.getVelocity();
+        player.setVelocity(velocity.setX(velocity.getX() + x).setY(velocity.getY() + y).setZ(velocity.getZ() + z));
+    }
+}
@@ -0,0 +1,80 @@
+package top.sanscraft.trappedtnt.damage;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sample points vanilla uses to measure how much of a bounding box an explosion can see.
+ * The points depend only on the box dimensions, so lattices are built once per entity size.
+ * Lattices are immutable and shared by every thread that handles explosion damage.
+ */
+final class SampleLattice {
+    
+    private static final int MAX_CACHED = 64;
+    private static final ConcurrentHashMap<Long, SampleLattice> CACHE = new ConcurrentHashMap<>();
+    // Most victims are players of the same size, so their lattice is found without boxing a key
+    private static volatile SampleLattice last;
+    
+    private final long key;
+    
+    /** Interpolation fractions along each axis of the box */
+    final double[] x;
+    final double[] y;
+    final double[] z;
+    /** Horizontal offsets that centre the lattice in the box */
+    final double offsetX;
+    final double offsetZ;
+    final int size;
+    
+    private SampleLattice(long key, double width, double height, double depth) {
+        this.key = key;
+        double stepX = 1.0 / (width * 2.0 + 1.0);
+        double stepY = 1.0 / (height * 2.0 + 1.0);
+        double stepZ = 1.0 / (depth * 2.0 + 1.0);
+        this.x = fractions(stepX);
+        this.y = fractions(stepY);
+        this.z = fractions(stepZ);
+        this.offsetX = (1.0 - Math.floor(1.0 / stepX) * stepX) / 2.0;
+        this.offsetZ = (1.0 - Math.floor(1.0 / stepZ) * stepZ) / 2.0;
+        this.size = x.length * y.length * z.length;
+    }
+    
+    /**
+     * Gets the lattice for a box of the given size. Thread-safe.
+     */
+    static SampleLattice forBox(double width, double height, double depth) {
+        long key = (Math.round(width * 1000.0) << 42) | (Math.round(height * 1000.0) << 21) | Math.round(depth * 1000.0);
+        SampleLattice lattice = last;
+        if (lattice != null && lattice.key == key) {
+            return lattice;
+        }
+        
+        lattice = CACHE.get(key);
+        if (lattice == null) {
+            if (CACHE.size() >= MAX_CACHED) {
+                CACHE.clear();
+            }
+            // Racing threads may each build one; they are equal, so either can be kept
+            lattice = new SampleLattice(key, width, height, depth);
+            CACHE.put(key, lattice);
+        }
+        last = lattice;
+        return lattice;
+    }
+    
+    /**
+     * Steps from 0 to 1 the same way vanilla does, so the sample count matches exactly
+     */
+    private static double[] fractions(double step) {
+        int count = 0;
+        for (double d = 0.0; d <= 1.0; d += step) {
+            count++;
+        }
+        
+        double[] fractions = new double[count];
+        int i = 0;
+        for (double d = 0.0; d <= 1.0; d += step) {
+            fractions[i++] = d;
+        }
+        return fractions;
+    }
+}
@@ -0,0 +1,74 @@
+package top.sanscraft.trappedtnt.listeners;
+
+import top.sanscraft.trappedtnt.storage.TrapJournal;
+import top.sanscraft.trappedtnt.storage.TrapRecord;
+import top.sanscraft.trappedtnt.tracking.TrapRecovery;
+import org.bukkit.Chunk;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.TNTPrimed;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.EntitiesLoadEvent;
+import org.bukkit.event.world.EntitiesUnloadEvent;
+
+import java.util.List;
+
+/**
+ * Moves traps between the armed registry and the dormant tier as chunk entities
+ * unload and load, so proximity checks only ever see traps players can reach
+ */
+public class ChunkTrackingListener implements Listener {
+    
+    private final TrappedTntListener trapListener;
+    private final TrapRecovery recovery;
+    private final TrapJournal journal;
+    
+    public ChunkTrackingListener(TrappedTntListener trapListener, TrapRecovery recovery, TrapJournal journal) {
+        this.trapListener = trapListener;
+        this.recovery = recovery;
+        this.journal = journal;
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntitiesUnload(EntitiesUnloadEvent event) {
+        for (Entity entity : event.getEntities()) {
+            if (!(entity instanceof TNTPrimed)) {
+                continue;
+            }
+            
+            TrapRecord record = trapListener.detachTrap((TNTPrimed) entity);
+            if (record != null) {
+                recovery.add(record);
+            }
+        }
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntitiesLoad(EntitiesLoadEvent event) {
+        Chunk chunk = event.getChunk();
+        List<TrapRecord> records = recovery.take(chunk.getWorld().getUID(), chunk.getX(), chunk.getZ());
+        if (records == null) {
+            return;
+        }
+        
+        for (TrapRecord record : records) {
+            TNTPrimed tnt = findTnt(event.getEntities(), record);
+            if (tnt != null) {
+                trapListener.trackRecovered(tnt, record);
+            } else {
+                // The entity did not come back with its chunk, so the trap is gone
+                journal.recordRemoved(record.getId());
+            }
+        }
+    }
+    
+    private static TNTPrimed findTnt(List<Entity> entities, TrapRecord record) {
+        for (Entity entity : entities) {
+            if (entity instanceof TNTPrimed && entity.getUniqueId().equals(record.getId())) {
+                return (TNTPrimed) entity;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,54 @@
+package top.sanscraft.trappedtnt.listeners;
+
+import top.sanscraft.trappedtnt.utils.WorldGuardIntegration;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerCommandPreprocessEvent;
+import org.bukkit.event.server.ServerCommandEvent;
+
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Invalidates cached WorldGuard placement decisions whenever a region command is run.
+ * WorldGuard has no region change event, so its commands are the signal; the cache TTL
+ * covers regions changed by other plugins.
+ * Commands like /rg define apply their change on WorldGuard's executor after the command
+ * event, so decisions are not cached again until {@link #SETTLE_SECONDS} have passed.
+ */
+public class RegionChangeListener implements Listener {
+    
+    private static final Set<String> REGION_COMMANDS = Set.of(
+        "rg", "region", "regions",
+        "worldguard:rg", "worldguard:region", "worldguard:regions"
+    );
+    /** How long after a region command its change is assumed to be applied */
+    private static final long SETTLE_SECONDS = 5L;
+    
+    private final WorldGuardIntegration worldGuardIntegration;
+    
+    public RegionChangeListener(WorldGuardIntegration worldGuardIntegration) {
+        this.worldGuardIntegration = worldGuardIntegration;
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerCommand(PlayerCommandPreprocessEvent event) {
+        // Player commands start with a slash
+        checkCommand(event.getMessage(), 1);
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onServerCommand(ServerCommandEvent event) {
+        String command = event.getCommand();
+        checkCommand(command, command.startsWith("/") ? 1 : 0);
+    }
+    
+    private void checkCommand(String command, int start) {
+        int end = command.indexOf(' ', start);
+        String label = command.substring(start, end < 0 ? command.length() : end).toLowerCase(Locale.ROOT);
+        if (REGION_COMMANDS.contains(label)) {
+            worldGuardIntegration.invalidateCache(SETTLE_SECONDS);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package top.sanscraft.trappedtnt.listeners;
+
+import org.bukkit.Material;
+import org.bukkit.block.Block;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockPistonEvent;
+import org.bukkit.event.block.BlockPistonExtendEvent;
+import org.bukkit.event.block.BlockPistonRetractEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Keeps the TNT blocks of traps that are waiting to arm or armed as virtual records in step
+ * with players breaking them, pistons moving them and explosions destroying them
+ */
+public class TrapBlockListener implements Listener {
+    
+    private final TrappedTntListener trapListener;
+    
+    public TrapBlockListener(TrappedTntListener trapListener) {
+        this.trapListener = trapListener;
+    }
+    
+    @EventHandler(priority = EventPriority.HIGHEST)
+    public void onBlockBreak(BlockBreakEvent event) {
+        if (event.isCancelled()) return;
+        
+        Block block = event.getBlock();
+        if (block.getType() == Material.TNT && trapListener.breakTrapBlock(block, event.getPlayer())) {
+            event.setCancelled(true);
+        }
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPistonExtend(BlockPistonExtendEvent event) {
+        movePushed(event, event.getBlocks());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPistonRetract(BlockPistonRetractEvent event) {
+        movePushed(event, event.getBlocks());
+    }
+    
+    @EventHandler(priority = EventPriority.HIGHEST)
+    public void onBlockExplode(BlockExplodeEvent event) {
+        if (event.isCancelled()) return;
+        primeExploded(event.blockList());
+    }
+    
+    @EventHandler(priority = EventPriority.HIGHEST)
+    public void onEntityExplode(EntityExplodeEvent event) {
+        if (event.isCancelled()) return;
+        primeExploded(event.blockList());
+    }
+    
+    private void movePushed(BlockPistonEvent event, List<Block> blocks) {
+        if (event.isCancelled() || blocks.isEmpty() || !trapListener.hasTrapBlocks(event.getBlock().getWorld())) {
+            return;
+        }
+        trapListener.moveTrapBlocks(event.getBlock().getWorld(), blocks, event.getDirection());
+    }
+    
+    /**
+     * Takes trap blocks out of an explosion so they go off as trapped TNT instead of plain TNT
+     */
+    private void primeExploded(List<Block> blocks) {
+        if (blocks.isEmpty() || !trapListener.hasTrapBlocks(blocks.get(0).getWorld())) {
+            return;
+        }
+        
+        Iterator<Block> iterator = blocks.iterator();
+        while (iterator.hasNext()) {
+            Block block = iterator.next();
+            if (block.getType() == Material.TNT && trapListener.explodeTrapBlock(block)) {
+                iterator.remove();
+            }
+        }
+    }
+}
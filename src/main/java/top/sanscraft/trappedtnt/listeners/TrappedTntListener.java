@@ -1,12 +1,35 @@
 package top.sanscraft.trappedtnt.listeners;
 
 import top.sanscraft.trappedtnt.TrappedTnt;
+import top.sanscraft.trappedtnt.config.Message;
+import top.sanscraft.trappedtnt.config.TrappedTntSettings;
+import top.sanscraft.trappedtnt.damage.DamageReductions;
+import top.sanscraft.trappedtnt.damage.ExplosionDamage;
+import top.sanscraft.trappedtnt.damage.KnockbackQueue;
+import top.sanscraft.trappedtnt.metrics.PluginMetrics;
+import top.sanscraft.trappedtnt.scheduler.DetonationBudget;
+import top.sanscraft.trappedtnt.scheduler.TickScheduler;
+import top.sanscraft.trappedtnt.scheduler.TimingWheel;
+import top.sanscraft.trappedtnt.storage.TrapEventLog;
+import top.sanscraft.trappedtnt.storage.TrapJournal;
+import top.sanscraft.trappedtnt.storage.TrapRecord;
+import top.sanscraft.trappedtnt.tracking.ArmedTrap;
+import top.sanscraft.trappedtnt.tracking.DetonationCluster;
+import top.sanscraft.trappedtnt.tracking.ExplosionContext;
+import top.sanscraft.trappedtnt.tracking.PlayerCellCache;
+import top.sanscraft.trappedtnt.tracking.TrapBlocks;
+import top.sanscraft.trappedtnt.tracking.TrapRegistry;
+import top.sanscraft.trappedtnt.tracking.VirtualTrapStore;
+import top.sanscraft.trappedtnt.utils.ConcurrentLongObjectMap;
 import top.sanscraft.trappedtnt.utils.TrappedTntUtils;
 import top.sanscraft.trappedtnt.utils.WorldGuardIntegration;
 import org.bukkit.Bukkit;
-import org.bukkit.ChatColor;
 import org.bukkit.Location;
 import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
 import org.bukkit.entity.TNTPrimed;
 import org.bukkit.event.EventHandler;
@@ -15,34 +38,78 @@ import org.bukkit.event.Listener;
 import org.bukkit.event.block.BlockPlaceEvent;
 import org.bukkit.event.entity.EntityDamageByEntityEvent;
 import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.entity.ExplosionPrimeEvent;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
 import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.metadata.FixedMetadataValue;
-import org.bukkit.util.Vector;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class TrappedTntListener implements Listener {
     
+    // Slightly larger than TNT entity hitbox
+    public static final double TRIGGER_RADIUS = 1.2;
+    // Lock stripes for trap state when regions tick on separate threads
+    private static final int REGION_THREADED_STRIPES = 16;
+    // How often a virtual trap whose fuse ended in an unloaded chunk checks for the chunk
+    private static final long UNLOADED_FUSE_RETRY_TICKS = 20L;
+    // How often an armed trap entity is filed again under the cell it moved into
+    private static final long DRIFT_CHECK_TICKS = 5L;
+    
     private final TrappedTnt plugin;
     private final TrappedTntUtils tntUtils;
     private final WorldGuardIntegration worldGuardIntegration;
-    private final Map<Location, UUID> trappedTntLocations = new HashMap<>();
-    private final Set<TNTPrimed> activeTrapTnt = new HashSet<>();
+    // TNT blocks waiting to be armed, and those of virtual traps
+    private final TrapBlocks trapBlocks = new TrapBlocks();
+    private final TrapRegistry trapRegistry;
+    private final VirtualTrapStore virtualTraps = new VirtualTrapStore();
+    // Lets move events in trap-free cells skip the proximity scan
+    private final PlayerCellCache playerCells;
+    // Keyed by TNT entity id, only kept for the tick the explosion happens in
+    private final ConcurrentLongObjectMap<ExplosionContext> explosionContexts;
+    // Clusters still collecting detonations; each lives for the clustering window only. Guarded by itself.
+    private final List<DetonationCluster> openClusters = new ArrayList<>();
+    private final DetonationBudget detonationBudget = new DetonationBudget();
+    private final TrapJournal trapJournal;
+    private final TrapEventLog eventLog;
+    private final TickScheduler tickScheduler;
+    private final KnockbackQueue knockbackQueue;
+    private final PluginMetrics metrics;
+    private volatile boolean moveEventDetection = true;
     
     public TrappedTntListener(TrappedTnt plugin) {
         this.plugin = plugin;
-        this.tntUtils = new TrappedTntUtils(plugin);
-        this.worldGuardIntegration = new WorldGuardIntegration(plugin);
+        this.tntUtils = plugin.getTntUtils();
+        this.worldGuardIntegration = plugin.getWorldGuardIntegration();
+        this.trapJournal = plugin.getTrapJournal();
+        this.eventLog = plugin.getEventLog();
+        this.tickScheduler = plugin.getTickScheduler();
+        int stripes = tickScheduler.isRegionThreaded() ? REGION_THREADED_STRIPES : 1;
+        this.trapRegistry = new TrapRegistry(stripes);
+        this.explosionContexts = new ConcurrentLongObjectMap<>(stripes);
+        this.playerCells = new PlayerCellCache(stripes, this::hasTrapsAround);
+        this.knockbackQueue = new KnockbackQueue(tickScheduler);
+        this.metrics = plugin.getMetrics();
     }
     
     @EventHandler(priority = EventPriority.HIGH)
     public void onBlockPlace(BlockPlaceEvent event) {
+        long start = metrics.startTimer();
+        try {
+            handleBlockPlace(event);
+        } finally {
+            metrics.stopTimer(PluginMetrics.Timer.BLOCK_PLACE, start);
+        }
+    }
+    
+    private void handleBlockPlace(BlockPlaceEvent event) {
         if (event.isCancelled()) return;
         
         Player player = event.getPlayer();
@@ -55,105 +122,580 @@ public class TrappedTntListener implements Listener {
         
         Location location = event.getBlock().getLocation();
         
+        // Admission control: cheap counter lookups before the region check
+        if (!checkTrapLimits(player, location)) {
+            event.setCancelled(true);
+            return;
+        }
+        
         // Check WorldGuard permissions
-        List<String> allowedRegions = plugin.getConfig().getStringList("worldguard.allowed-regions");
-        if (!worldGuardIntegration.canPlaceTrappedTnt(location, allowedRegions)) {
+        long regionCheckStart = metrics.startTimer();
+        boolean allowed = worldGuardIntegration.canPlaceTrappedTnt(location, plugin.getSettings().getAllowedRegions());
+        metrics.stopTimer(PluginMetrics.Timer.WORLDGUARD_CHECK, regionCheckStart);
+        if (!allowed) {
             event.setCancelled(true);
-            String message = plugin.getConfig().getString("messages.region-not-allowed", "&cYou cannot place trapped TNT in this area!");
-            player.sendMessage(ChatColor.translateAlternateColorCodes('&', message));
+            metrics.increment(PluginMetrics.Counter.REGION_DENIALS);
+            plugin.getMessages().get(Message.REGION_NOT_ALLOWED).send(player);
             return;
         }
         
+        metrics.increment(PluginMetrics.Counter.PLACEMENTS);
+        recordEvent(TrapEventLog.EventType.PLACE, location, player.getUniqueId());
+        trapBlocks.put(location.getWorld().getUID(), location.getBlockX(), location.getBlockY(), location.getBlockZ(), player.getUniqueId());
+        
         // Schedule TNT spawning and fuse start
-        Bukkit.getScheduler().runTaskLater(plugin, () -> {
-            if (location.getBlock().getType() == Material.TNT) {
+        tickScheduler.schedule(location, 1L, TimingWheel.Kind.ARMING, () -> {
+            // The block may have been broken, pushed or blown up before it armed
+            if (!trapBlocks.contains(location.getWorld().getUID(), location.getBlockX(), location.getBlockY(), location.getBlockZ())) {
+                return;
+            }
+            if (location.getBlock().getType() != Material.TNT) {
+                forgetTrapBlock(location);
+                return;
+            }
+            if (plugin.getSettings().isVirtualTraps()) {
+                armVirtualTrap(location, player);
+            } else {
                 spawnTrappedTnt(location, player);
             }
-        }, 1L);
+        });
         
         // Send placement message
-        String message = plugin.getConfig().getString("messages.trapped-tnt-placed", "&eTrapped TNT placed! Be careful...");
-        player.sendMessage(ChatColor.translateAlternateColorCodes('&', message));
+        plugin.getMessages().get(Message.TRAPPED_TNT_PLACED).send(player);
+    }
+    
+    /**
+     * Checks the per-chunk and per-player trap limits for a placement, telling the player if one is reached
+     * @return true if the trap can be placed
+     */
+    private boolean checkTrapLimits(Player player, Location location) {
+        TrappedTntSettings settings = plugin.getSettings();
+        
+        int chunkLimit = settings.getMaxTrapsPerChunk();
+        int chunkX = location.getBlockX() >> 4;
+        int chunkZ = location.getBlockZ() >> 4;
+        UUID worldId = location.getWorld().getUID();
+        int chunkCount = trapRegistry.getChunkCount(worldId, chunkX, chunkZ) + virtualTraps.getChunkCount(worldId, chunkX, chunkZ);
+        if (chunkLimit > 0 && chunkCount >= chunkLimit) {
+            metrics.increment(PluginMetrics.Counter.CHUNK_LIMIT_DENIALS);
+            player.sendMessage(plugin.getMessages().get(Message.CHUNK_TRAP_LIMIT).render("limit", String.valueOf(chunkLimit)));
+            return false;
+        }
+        
+        int playerLimit = settings.getMaxTrapsPerPlayer();
+        int playerCount = trapRegistry.getPlacerCount(player.getUniqueId()) + virtualTraps.getPlacerCount(player.getUniqueId());
+        if (playerLimit > 0 && playerCount >= playerLimit) {
+            metrics.increment(PluginMetrics.Counter.PLAYER_LIMIT_DENIALS);
+            player.sendMessage(plugin.getMessages().get(Message.PLAYER_TRAP_LIMIT).render("limit", String.valueOf(playerLimit)));
+            return false;
+        }
+        return true;
     }
     
     private void spawnTrappedTnt(Location location, Player placer) {
-        // Remove the TNT block
+        TrappedTntSettings settings = plugin.getSettings();
+        
+        // Remove the TNT block; from here on the trap is tracked by its entity
         location.getBlock().setType(Material.AIR);
+        forgetTrapBlock(location);
         
         // Spawn primed TNT entity
         Location spawnLoc = location.clone().add(0.5, 0, 0.5);
         TNTPrimed tnt = location.getWorld().spawn(spawnLoc, TNTPrimed.class);
         
         // Set fuse timer from config
-        int fuseTimer = plugin.getConfig().getInt("trapped-tnt.fuse-timer", 80);
+        int fuseTimer = settings.getFuseTicks();
         tnt.setFuseTicks(fuseTimer);
         
-        // Mark as trapped TNT with metadata
-        tnt.setMetadata("trapped_tnt", new FixedMetadataValue(plugin, true));
-        tnt.setMetadata("placer", new FixedMetadataValue(plugin, placer.getUniqueId().toString()));
+        // Mark as trapped TNT in the entity's persistent data
+        tntUtils.markTrappedTnt(tnt, placer.getUniqueId());
         
-        // Store location for proximity detection (legacy tracking)
-        trappedTntLocations.put(location, placer.getUniqueId());
+        // Register as armed for real-time collision detection
+        ArmedTrap trap = new ArmedTrap(tnt, placer.getUniqueId(), location);
+        trapRegistry.register(trap, true);
+        trapsChangedAt(location);
+        scheduleDriftCheck(trap);
         
-        // Add to active TNT tracking set for real-time collision detection
-        activeTrapTnt.add(tnt);
+        // Persist the armed trap so it is tracked again after a restart
+        trapJournal.recordArmed(new TrapRecord(tnt.getUniqueId(), location.getWorld().getUID(),
+            location.getBlockX(), location.getBlockY(), location.getBlockZ(),
+            placer.getUniqueId(), System.currentTimeMillis(), fuseTimer));
+        
+        recordEvent(TrapEventLog.EventType.ARM, location, placer.getUniqueId());
         
         // Schedule cleanup of location tracking when TNT explodes naturally
-        Bukkit.getScheduler().runTaskLater(plugin, () -> {
-            trappedTntLocations.remove(location);
-            activeTrapTnt.remove(tnt);
-        }, fuseTimer + 5L);
+        scheduleCleanup(location, tnt, fuseTimer + 5L);
         
-        if (plugin.getConfig().getBoolean("general.debug", false)) {
+        if (settings.isDebug()) {
             plugin.getLogger().info("Trapped TNT spawned at " + location + " by " + placer.getName());
         }
     }
     
+    /**
+     * Arms a trap as a record next to its TNT block; the TNT is only primed when the trap is
+     * triggered or its fuse ends
+     */
+    private void armVirtualTrap(Location location, Player placer) {
+        TrappedTntSettings settings = plugin.getSettings();
+        int fuseTimer = settings.getFuseTicks();
+        UUID worldId = location.getWorld().getUID();
+        int x = location.getBlockX();
+        int y = location.getBlockY();
+        int z = location.getBlockZ();
+        long armTick = tickScheduler.getCurrentTick();
+        long armedAt = System.currentTimeMillis();
+        
+        virtualTraps.add(worldId, x, y, z, placer.getUniqueId(), armTick, armedAt, fuseTimer);
+        trapsChangedAt(location);
+        trapJournal.recordArmed(new TrapRecord(TrapRecord.virtualId(worldId, x, y, z), worldId, x, y, z,
+            placer.getUniqueId(), armedAt, fuseTimer));
+        recordEvent(TrapEventLog.EventType.ARM, location, placer.getUniqueId());
+        scheduleVirtualFuse(location, armTick, fuseTimer);
+        
+        if (settings.isDebug()) {
+            plugin.getLogger().info("Virtual trapped TNT armed at " + location + " by " + placer.getName());
+        }
+    }
+    
+    /**
+     * Primes a virtual trap when its fuse ends, waiting for its chunk to load if it is not
+     */
+    private void scheduleVirtualFuse(Location location, long armTick, long delay) {
+        tickScheduler.schedule(location, delay, TimingWheel.Kind.DETONATION, () -> {
+            World world = location.getWorld();
+            int x = location.getBlockX();
+            int y = location.getBlockY();
+            int z = location.getBlockZ();
+            if (!world.isChunkLoaded(x >> 4, z >> 4)) {
+                // Priming would load the chunk; check again later while the trap is still there
+                if (virtualTraps.contains(world.getUID(), x, y, z, armTick)) {
+                    scheduleVirtualFuse(location, armTick, UNLOADED_FUSE_RETRY_TICKS);
+                }
+                return;
+            }
+            
+            TrapRecord record = virtualTraps.take(world.getUID(), x, y, z, armTick);
+            if (record == null) {
+                return; // Already triggered
+            }
+            trapsChangedAt(location);
+            if (location.getBlock().getType() == Material.TNT) {
+                primeVirtualTrap(record, location, 0);
+            } else {
+                dropVirtualTrap(record, location);
+            }
+        });
+    }
+    
+    /**
+     * Replaces a virtual trap's TNT block with primed trapped TNT
+     */
+    private TNTPrimed primeVirtualTrap(TrapRecord record, Location location, int fuseTicks) {
+        dropVirtualTrap(record, location);
+        return primeTrapBlock(location, record.getPlacer(), fuseTicks);
+    }
+    
+    /**
+     * Replaces a trap's TNT block with primed trapped TNT that is already triggered
+     * @param placer The placing player, or null if unknown
+     */
+    private TNTPrimed primeTrapBlock(Location location, UUID placer, int fuseTicks) {
+        location.getBlock().setType(Material.AIR);
+        
+        TNTPrimed tnt = location.getWorld().spawn(location.clone().add(0.5, 0, 0.5), TNTPrimed.class);
+        tnt.setFuseTicks(fuseTicks);
+        if (placer != null) {
+            tntUtils.markTrappedTnt(tnt, placer);
+        }
+        
+        // Tracked as already triggered, so it is identified when it explodes
+        trapRegistry.register(new ArmedTrap(tnt, placer, location), false);
+        scheduleCleanup(location, tnt, fuseTicks + 5L);
+        return tnt;
+    }
+    
+    /**
+     * Forgets a virtual trap that has been taken out of the store
+     */
+    private void dropVirtualTrap(TrapRecord record, Location location) {
+        forgetTrapBlock(location);
+        trapJournal.recordRemoved(record.getId());
+    }
+    
+    private void forgetTrapBlock(Location location) {
+        trapBlocks.remove(location.getWorld().getUID(), location.getBlockX(), location.getBlockY(), location.getBlockZ());
+    }
+    
+    /**
+     * Re-arms a persisted virtual trap with the fuse it had left
+     */
+    public void restoreVirtualTrap(TrapRecord record) {
+        World world = Bukkit.getWorld(record.getWorldId());
+        if (world == null) {
+            trapJournal.recordRemoved(record.getId());
+            return;
+        }
+        
+        Location location = new Location(world, record.getX(), record.getY(), record.getZ());
+        long armTick = tickScheduler.getCurrentTick();
+        virtualTraps.add(record.getWorldId(), record.getX(), record.getY(), record.getZ(), record.getPlacer(),
+            armTick, record.getArmedAtMillis(), record.getFuseTicks());
+        trapsChangedAt(location);
+        trapBlocks.put(record.getWorldId(), record.getX(), record.getY(), record.getZ(), record.getPlacer());
+        scheduleVirtualFuse(location, armTick, record.getFuseTicks());
+    }
+    
+    /**
+     * Checks if a world has any TNT block that belongs to a trap
+     */
+    public boolean hasTrapBlocks(World world) {
+        return trapBlocks.hasAny(world.getUID());
+    }
+    
+    /**
+     * Handles a player breaking a trap's TNT block. With contact detection enabled the trap
+     * goes off as if the player had touched it; otherwise it is defused and the block breaks
+     * as plain TNT.
+     * @return true if the break should be cancelled because the trap was primed instead
+     */
+    public boolean breakTrapBlock(Block block, Player player) {
+        UUID worldId = block.getWorld().getUID();
+        UUID placer = trapBlocks.getPlacer(worldId, block.getX(), block.getY(), block.getZ());
+        if (!releaseTrapBlock(worldId, block.getX(), block.getY(), block.getZ()) || !isContactDetectionEnabled()) {
+            return false;
+        }
+        
+        Location location = block.getLocation();
+        TNTPrimed tnt = primeTrapBlock(location, placer, reserveDetonation(player));
+        onTriggered(player, tnt, location, placer);
+        return true;
+    }
+    
+    /**
+     * Primes a trap's TNT block caught in an explosion as trapped TNT, with the short random
+     * fuse vanilla gives TNT set off by a blast
+     * @return true if the block should be taken out of the explosion's block list
+     */
+    public boolean explodeTrapBlock(Block block) {
+        UUID worldId = block.getWorld().getUID();
+        UUID placer = trapBlocks.getPlacer(worldId, block.getX(), block.getY(), block.getZ());
+        if (!releaseTrapBlock(worldId, block.getX(), block.getY(), block.getZ())) {
+            return false;
+        }
+        
+        int fuse = plugin.getSettings().getFuseTicks();
+        primeTrapBlock(block.getLocation(), placer, ThreadLocalRandom.current().nextInt(Math.max(1, fuse / 4)) + fuse / 8);
+        return true;
+    }
+    
+    /**
+     * Follows trap blocks a piston is about to move one block in the given direction.
+     * Virtual traps move with their block; a block still waiting to be armed loses its trap.
+     */
+    public void moveTrapBlocks(World world, List<Block> blocks, BlockFace direction) {
+        UUID worldId = world.getUID();
+        List<Block> moved = null;
+        for (int i = 0, n = blocks.size(); i < n; i++) {
+            Block block = blocks.get(i);
+            if (trapBlocks.contains(worldId, block.getX(), block.getY(), block.getZ())) {
+                if (moved == null) {
+                    moved = new ArrayList<>();
+                }
+                moved.add(block);
+            }
+        }
+        if (moved == null) {
+            return;
+        }
+        
+        int dx = direction.getModX();
+        int dy = direction.getModY();
+        int dz = direction.getModZ();
+        // Move the block furthest along the push first, so each one moves into a vacated position
+        moved.sort(Comparator.comparingInt((Block block) -> block.getX() * dx + block.getY() * dy + block.getZ() * dz).reversed());
+        long currentTick = tickScheduler.getCurrentTick();
+        for (Block block : moved) {
+            int x = block.getX();
+            int y = block.getY();
+            int z = block.getZ();
+            trapBlocks.remove(worldId, x, y, z);
+            TrapRecord record = virtualTraps.move(worldId, x, y, z, x + dx, y + dy, z + dz, currentTick);
+            if (record == null) {
+                continue; // Not armed yet; its arming task no longer finds it
+            }
+            
+            playerCells.invalidateAround(x, z);
+            playerCells.invalidateAround(record.getX(), record.getZ());
+            trapBlocks.put(worldId, record.getX(), record.getY(), record.getZ(), record.getPlacer());
+            trapJournal.recordRemoved(TrapRecord.virtualId(worldId, x, y, z));
+            trapJournal.recordArmed(record);
+            scheduleVirtualFuse(new Location(world, record.getX(), record.getY(), record.getZ()), currentTick, record.getFuseTicks());
+        }
+    }
+    
+    /**
+     * Forgets the trap at a block, along with its virtual record if it was armed
+     * @return false if the block does not belong to a trap
+     */
+    private boolean releaseTrapBlock(UUID worldId, int x, int y, int z) {
+        if (!trapBlocks.remove(worldId, x, y, z)) {
+            return false;
+        }
+        TrapRecord record = virtualTraps.take(worldId, x, y, z);
+        if (record != null) {
+            trapJournal.recordRemoved(record.getId());
+            playerCells.invalidateAround(x, z);
+        }
+        return true;
+    }
+    
     @EventHandler
     public void onPlayerMove(PlayerMoveEvent event) {
-        if (!plugin.getConfig().getBoolean("trapped-tnt.instant-explosion-on-contact", true)) {
+        long start = metrics.startTimer();
+        try {
+            handlePlayerMove(event);
+        } finally {
+            metrics.stopTimer(PluginMetrics.Timer.PLAYER_MOVE, start);
+        }
+    }
+    
+    private void handlePlayerMove(PlayerMoveEvent event) {
+        // In tick-sweep mode proximity is checked by the sweep task instead
+        if (!moveEventDetection) {
+            return;
+        }
+        
+        if (!isContactDetectionEnabled() || getActiveTrapCount() == 0) {
+            return;
+        }
+        
+        Location playerLoc = event.getTo();
+        if (playerLoc == null) {
+            return;
+        }
+        
+        // Turning on the spot cannot bring a player into reach of a trap
+        Location from = event.getFrom();
+        if (from.getX() == playerLoc.getX() && from.getY() == playerLoc.getY() && from.getZ() == playerLoc.getZ()) {
             return;
         }
         
         Player player = event.getPlayer();
-        Location playerLoc = player.getLocation();
+        if (playerCells.isClear(player, playerLoc.getBlockX(), playerLoc.getBlockZ())) {
+            return;
+        }
         
-        // Check all active trapped TNT entities for proximity (real-time collision detection)
-        TNTPrimed tntToExplode = null;
-        for (TNTPrimed tnt : activeTrapTnt) {
-            // Check if TNT still exists and is valid
-            if (tnt == null || tnt.isDead() || !tnt.isValid()) {
-                continue;
-            }
-            
-            Location tntLoc = tnt.getLocation();
-            
-            // Check if player is in the same world
-            if (!playerLoc.getWorld().equals(tntLoc.getWorld())) {
-                continue;
+        checkProximity(player, playerLoc);
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerChangedWorld(PlayerChangedWorldEvent event) {
+        playerCells.invalidate(event.getPlayer());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        playerCells.release(event.getPlayer());
+    }
+    
+    /**
+     * Checks if any armed trap, entity or virtual, is filed under a cell or the cells around it
+     */
+    private boolean hasTrapsAround(UUID worldId, int cellX, int cellZ) {
+        return trapRegistry.hasArmedAround(worldId, cellX, cellZ) || virtualTraps.hasTrapsAround(worldId, cellX, cellZ);
+    }
+    
+    /**
+     * Makes players around a block check for traps again after one was armed or removed there
+     */
+    private void trapsChangedAt(Location block) {
+        playerCells.invalidateAround(block.getBlockX(), block.getBlockZ());
+    }
+    
+    /**
+     * Makes players around the cell an entity trap is filed under check for traps again
+     */
+    private void trapsChangedAt(ArmedTrap trap) {
+        playerCells.invalidateAround(trap.getFiledX(), trap.getFiledZ());
+    }
+    
+    /**
+     * Checks if instant explosion on contact is enabled in the config
+     */
+    public boolean isContactDetectionEnabled() {
+        return plugin.getSettings().isInstantExplosionOnContact();
+    }
+    
+    /**
+     * Enables or disables proximity checks on PlayerMoveEvent
+     */
+    public void setMoveEventDetection(boolean moveEventDetection) {
+        this.moveEventDetection = moveEventDetection;
+    }
+    
+    /**
+     * Triggers the first armed trap within reach of a player or other entity at the given location
+     * @return true if a trap was triggered
+     */
+    public boolean checkProximity(Entity entity, Location entityLoc) {
+        // Only check the traps in the cells around the entity (real-time collision detection)
+        // Only one explosion is triggered per check
+        ArmedTrap trap = trapRegistry.findArmedWithin(entityLoc.getWorld(), entityLoc.getX(), entityLoc.getY(), entityLoc.getZ(), TRIGGER_RADIUS);
+        
+        // Trigger explosion if a TNT was found; disarm it first so only one check can trigger it
+        if (trap != null) {
+            if (!trapRegistry.disarm(trap)) {
+                return false;
             }
-            
-            // Calculate distance using the actual TNT entity location
-            double distance = playerLoc.distance(tntLoc);
-            
-            if (distance <= 1.2) { // Slightly larger than TNT entity hitbox
-                tntToExplode = tnt;
-                break; // Only trigger one explosion per move event
+            trapsChangedAt(trap);
+            TNTPrimed tntToExplode = trap.getEntity();
+            tntToExplode.setFuseTicks(reserveDetonation(entity));
+            onTriggered(entity, tntToExplode, trap.getBlockLocation(), trap.getPlacer());
+            return true;
+        }
+        
+        // Virtual traps are taken out of the store, so likewise only one check can trigger them
+        if (virtualTraps.size() == 0) {
+            return false;
+        }
+        TrapRecord record = virtualTraps.takeWithin(entityLoc.getWorld(), entityLoc.getX(), entityLoc.getY(), entityLoc.getZ(), TRIGGER_RADIUS);
+        if (record == null) {
+            return false;
+        }
+        Location location = new Location(entityLoc.getWorld(), record.getX(), record.getY(), record.getZ());
+        trapsChangedAt(location);
+        if (location.getBlock().getType() != Material.TNT) {
+            dropVirtualTrap(record, location);
+            return false;
+        }
+        TNTPrimed tntToExplode = primeVirtualTrap(record, location, reserveDetonation(entity));
+        onTriggered(entity, tntToExplode, location, record.getPlacer());
+        return true;
+    }
+    
+    /**
+     * Gathers the traps entity contact checks go through: the armed trap entities, and the
+     * virtual traps with the fuse they have left
+     */
+    public void collectArmedTraps(List<ArmedTrap> armed, List<TrapRecord> virtual) {
+        armed.clear();
+        virtual.clear();
+        trapRegistry.collectArmed(armed);
+        if (virtualTraps.size() > 0) {
+            virtual.addAll(virtualTraps.snapshot(tickScheduler.getCurrentTick()));
+        }
+    }
+    
+    /**
+     * Reserves a tick in the detonation budget for a triggered trap, telling a triggering player if it has to wait
+     * @return the fuse to give the trap: 0 to go off right away, more if this tick's budget is spent
+     */
+    private int reserveDetonation(Entity trigger) {
+        int delay = detonationBudget.reserve(tickScheduler.getCurrentTick(), plugin.getSettings().getMaxDetonationsPerTick());
+        if (delay > 0) {
+            metrics.increment(PluginMetrics.Counter.DEFERRED_DETONATIONS);
+            if (trigger instanceof Player) {
+                plugin.getMessages().get(Message.DETONATION_DELAYED).send(trigger);
             }
         }
+        return DetonationBudget.fuseTicks(delay);
+    }
+    
+    private void onTriggered(Entity trigger, TNTPrimed tnt, Location block, UUID placer) {
+        metrics.increment(PluginMetrics.Counter.TRIGGERS);
+        if (!(trigger instanceof Player)) {
+            metrics.increment(PluginMetrics.Counter.ENTITY_TRIGGERS);
+        }
+        recordEvent(TrapEventLog.EventType.TRIGGER, block, placer);
         
-        // Trigger explosion if a TNT was found
-        if (tntToExplode != null) {
-            // Remove from tracking immediately to prevent multiple triggers
-            activeTrapTnt.remove(tntToExplode);
-            
-            // Trigger immediate explosion
-            tntToExplode.setFuseTicks(0);
+        if (plugin.getSettings().isDebug()) {
+            plugin.getLogger().info("Trapped TNT triggered by proximity at " + tnt.getLocation() + " by " + trigger.getName());
+        }
+    }
+    
+    /**
+     * Merges trapped TNT detonations into clusters when clustering is enabled.
+     * Every trapped TNT detonation is cancelled here and either opens a cluster or joins the
+     * open cluster it is close to; each cluster explodes once when its window ends.
+     */
+    @EventHandler(priority = EventPriority.HIGH)
+    public void onClusterDetonation(ExplosionPrimeEvent event) {
+        if (event.isCancelled() || !(event.getEntity() instanceof TNTPrimed)) {
+            return;
+        }
+        
+        TrappedTntSettings settings = plugin.getSettings();
+        if (!settings.isClusteringEnabled()) {
+            return;
+        }
+        
+        TNTPrimed tnt = (TNTPrimed) event.getEntity();
+        ArmedTrap trap = findTrap(tnt);
+        if (trap == null) {
+            return;
+        }
+        
+        // The TNT entity is already gone; only its explosion is replaced
+        event.setCancelled(true);
+        Location center = tnt.getLocation().add(0, tnt.getHeight() * 0.0625, 0);
+        double radius = settings.getClusterRadius();
+        DetonationCluster cluster;
+        synchronized (openClusters) {
+            for (int i = 0, n = openClusters.size(); i < n; i++) {
+                DetonationCluster open = openClusters.get(i);
+                if (open.isWithin(center, radius)) {
+                    open.add(center, event.getRadius());
+                    forgetTrap(tnt.getEntityId());
+                    metrics.increment(PluginMetrics.Counter.MERGED_DETONATIONS);
+                    return;
+                }
+            }
             
-            if (plugin.getConfig().getBoolean("general.debug", false)) {
-                plugin.getLogger().info("Trapped TNT triggered by proximity at " + tntToExplode.getLocation() + " by " + player.getName());
+            cluster = new DetonationCluster(tnt, trap.getPlacer(), center, event.getRadius());
+            openClusters.add(cluster);
+        }
+        tickScheduler.schedule(center, settings.getClusterWindowTicks(), TimingWheel.Kind.DETONATION, () -> detonateCluster(cluster));
+    }
+    
+    /**
+     * Sets off the combined explosion of a cluster, with its anchoring TNT as the source so
+     * damage and explode events are handled like those of a single trapped TNT
+     */
+    private void detonateCluster(DetonationCluster cluster) {
+        TrappedTntSettings settings = plugin.getSettings();
+        Location center;
+        float power;
+        synchronized (openClusters) {
+            if (!openClusters.remove(cluster)) {
+                return; // Dropped by cleanup
             }
+            center = cluster.getCenter();
+            power = cluster.getPower(settings.getClusterMaxPower());
+        }
+        TNTPrimed source = cluster.getSource();
+        
+        int entityId = source.getEntityId();
+        explosionContexts.put(entityId, new ExplosionContext(center, cluster.getPlacer(), power, settings));
+        tickScheduler.schedule(1L, TimingWheel.Kind.EXPIRY, () -> explosionContexts.remove(entityId));
+        
+        if (settings.isDebug()) {
+            plugin.getLogger().info("Detonating a cluster of " + cluster.size() + " trapped TNT at " + center + " with power " + power);
+        }
+        center.getWorld().createExplosion(center, power, false, true, source);
+    }
+    
+    /**
+     * Captures the explosion context when a trapped TNT detonates.
+     * The server damages entities before it fires EntityExplodeEvent, so this is
+     * the last event that runs before the first victim is hit.
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onExplosionPrime(ExplosionPrimeEvent event) {
+        if (event.isCancelled() || !(event.getEntity() instanceof TNTPrimed)) {
+            return;
         }
+        
+        captureExplosion((TNTPrimed) event.getEntity());
     }
     
     /**
@@ -161,21 +703,37 @@ public class TrappedTntListener implements Listener {
      */
     @EventHandler(priority = EventPriority.HIGH)
     public void onEntityExplode(EntityExplodeEvent event) {
+        long start = metrics.startTimer();
+        try {
+            handleEntityExplode(event);
+        } finally {
+            metrics.stopTimer(PluginMetrics.Timer.ENTITY_EXPLODE, start);
+        }
+    }
+    
+    private void handleEntityExplode(EntityExplodeEvent event) {
         if (!(event.getEntity() instanceof TNTPrimed)) {
             return;
         }
         
         TNTPrimed tnt = (TNTPrimed) event.getEntity();
         
-        // Check if this is a trapped TNT using metadata
-        if (!tnt.hasMetadata("trapped_tnt")) {
+        // Check if this is a trapped TNT
+        ArmedTrap trap = findTrap(tnt);
+        if (trap == null) {
             return;
         }
         
-        // Remove from active tracking when it explodes
-        activeTrapTnt.remove(tnt);
+        // Remove from tracking when it explodes; every victim has been damaged by now
+        forgetTrap(tnt.getEntityId());
+        explosionContexts.remove(tnt.getEntityId());
         
-        plugin.getLogger().info("Trapped TNT exploded at " + tnt.getLocation());
+        Location location = tnt.getLocation();
+        metrics.increment(PluginMetrics.Counter.EXPLOSIONS);
+        recordEvent(TrapEventLog.EventType.EXPLODE, location, trap.getPlacer());
+        if (plugin.getSettings().isDebug()) {
+            plugin.getLogger().info("Trapped TNT exploded at " + location);
+        }
         
         // Note: We now handle damage modification in onEntityDamageByEntity
         // instead of applying custom damage here
@@ -186,20 +744,28 @@ public class TrappedTntListener implements Listener {
      */
     @EventHandler(priority = EventPriority.HIGH)
     public void onEntityDamageByEntity(EntityDamageByEntityEvent event) {
+        long start = metrics.startTimer();
+        try {
+            handleEntityDamageByEntity(event);
+        } finally {
+            metrics.stopTimer(PluginMetrics.Timer.ENTITY_DAMAGE, start);
+        }
+    }
+    
+    private void handleEntityDamageByEntity(EntityDamageByEntityEvent event) {
         // Only handle damage from TNT explosions
         if (!(event.getDamager() instanceof TNTPrimed)) {
             return;
         }
         
-        TNTPrimed tnt = (TNTPrimed) event.getDamager();
-        
-        // Check if this is a trapped TNT using metadata
-        if (!tnt.hasMetadata("trapped_tnt")) {
+        // Only handle damage to players
+        if (!(event.getEntity() instanceof Player)) {
             return;
         }
         
-        // Only handle damage to players
-        if (!(event.getEntity() instanceof Player)) {
+        // Look up the explosion-level state shared by every victim of this blast
+        ExplosionContext context = findExplosion((TNTPrimed) event.getDamager());
+        if (context == null) {
             return;
         }
         
@@ -215,57 +781,41 @@ public class TrappedTntListener implements Listener {
         if (isBlocking && hasShield) {
             // Always calculate what the damage would be without shield blocking
             // This ensures consistent 300% penalty regardless of partial vs perfect blocks
-            double unshieldedDamage = calculateUnshieldedExplosionDamage(player, tnt);
+            double unshieldedDamage = calculateUnshieldedExplosionDamage(player, context);
             
             // Check if the calculated unshielded damage is above threshold
-            double damageThreshold = plugin.getConfig().getDouble("trapped-tnt.shield-blocking-damage-threshold", 1.0);
-            if (unshieldedDamage < damageThreshold) {
+            if (unshieldedDamage < context.getDamageThreshold()) {
                 return;
             }
             
             // Apply configurable damage multiplier for blocking players
-            double damageMultiplier = plugin.getConfig().getDouble("trapped-tnt.shield-blocking-damage-multiplier", 3.0);
+            double damageMultiplier = context.getDamageMultiplier();
             double newDamage = unshieldedDamage * damageMultiplier;
             
-            // Cancel the original event to prevent shield blocking
-            event.setCancelled(true);
+            // Deal the penalty through the event itself: replace the base damage, remove the
+            // shield's block and work armour, Resistance, Protection and absorption out again,
+            // as the server calculated them from the blocked damage
+            DamageReductions.applyUnblocked(event, player, newDamage);
             
-            // Temporarily remove shields to bypass protection
-            ItemStack originalMainHand = mainHand.clone();
-            ItemStack originalOffHand = offHand.clone();
+            Location playerLoc = player.getLocation();
+            metrics.increment(PluginMetrics.Counter.SHIELD_PENALTIES);
+            recordEvent(TrapEventLog.EventType.SHIELD_PENALTY, playerLoc, context.getPlacer());
             
-            if (mainHand.getType() == Material.SHIELD) {
-                player.getInventory().setItemInMainHand(new ItemStack(Material.AIR));
-            }
-            if (offHand.getType() == Material.SHIELD) {
-                player.getInventory().setItemInOffHand(new ItemStack(Material.AIR));
+            // Add enhanced knockback for blocking players, after the explosion's own knockback
+            Location center = context.getCenter();
+            double dx = playerLoc.getX() - center.getX();
+            double dy = playerLoc.getY() - center.getY();
+            double dz = playerLoc.getZ() - center.getZ();
+            double length = Math.sqrt(dx * dx + dy * dy + dz * dz);
+            if (length > 0) {
+                // Ensure good upward knockback
+                knockbackQueue.add(player, dx / length, Math.max(dy / length, 0.2), dz / length);
             }
             
-            // Apply the damage directly, bypassing shields
-            player.damage(newDamage);
-            
-            // Add enhanced knockback for blocking players and restore shields
-            Bukkit.getScheduler().runTaskLater(plugin, () -> {
-                Vector knockback = player.getLocation().toVector().subtract(tnt.getLocation().toVector()).normalize();
-                knockback.multiply(1.0); // Enhanced knockback for blocking players
-                knockback.setY(Math.max(knockback.getY(), 0.2)); // Ensure good upward knockback
-                player.setVelocity(player.getVelocity().add(knockback));
-                
-                // Restore shields after applying damage and knockback
-                if (originalMainHand.getType() == Material.SHIELD) {
-                    player.getInventory().setItemInMainHand(originalMainHand);
-                }
-                if (originalOffHand.getType() == Material.SHIELD) {
-                    player.getInventory().setItemInOffHand(originalOffHand);
-                }
-            }, 1L);
-            
             // Send special message to blocking player
-            String message = plugin.getConfig().getString("messages.shield-blocking-damage", 
-                "&cYour shield was useless! You took &4300% damage &cfor trying to block the trapped TNT!");
-            player.sendMessage(ChatColor.translateAlternateColorCodes('&', message));
+            plugin.getMessages().get(Message.SHIELD_BLOCKING_DAMAGE).send(player);
             
-            if (plugin.getConfig().getBoolean("general.debug", false)) {
+            if (context.isDebug()) {
                 plugin.getLogger().info("Player " + player.getName() + " was blocking with shield (original: " + originalDamage + 
                     ", calculated unshielded: " + unshieldedDamage + ") - applying " + 
                     (damageMultiplier * 100) + "% damage (" + newDamage + ")");
@@ -273,16 +823,13 @@ public class TrappedTntListener implements Listener {
             
         } else if (originalDamage > 0) {
             // Handle non-blocking cases (original logic for when damage > 0)
-            double damageThreshold = plugin.getConfig().getDouble("trapped-tnt.shield-blocking-damage-threshold", 1.0);
-            if (originalDamage < damageThreshold) {
+            if (originalDamage < context.getDamageThreshold()) {
                 return;
             }
             
-            if (hasShield && plugin.getConfig().getBoolean("trapped-tnt.bypass-shields", true)) {
+            if (hasShield && context.isBypassShields()) {
                 // Player has shield but isn't blocking - send bypass message
-                String message = plugin.getConfig().getString("messages.shield-bypass-damage", 
-                    "&cYour shield couldn't protect you from the trapped TNT explosion!");
-                player.sendMessage(ChatColor.translateAlternateColorCodes('&', message));
+                plugin.getMessages().get(Message.SHIELD_BYPASS_DAMAGE).send(player);
             }
         }
     }
@@ -290,43 +837,192 @@ public class TrappedTntListener implements Listener {
     /**
      * Calculate what explosion damage would be without shield blocking
      */
-    private double calculateUnshieldedExplosionDamage(Player player, TNTPrimed tnt) {
+    private double calculateUnshieldedExplosionDamage(Player player, ExplosionContext context) {
         Location playerLoc = player.getLocation();
-        Location explosionLoc = tnt.getLocation();
-        
-        // Calculate distance from explosion center
-        double distance = playerLoc.distance(explosionLoc);
-        
-        // Get explosion power from config or use default TNT power
-        float explosionPower = (float) plugin.getConfig().getDouble("trapped-tnt.explosion-power", 4.0);
-        
-        // Calculate damage using vanilla-like formula
-        // This mimics Minecraft's explosion damage calculation
-        double maxDistance = explosionPower * 3.5;
+        return ExplosionDamage.calculate(context.getExposure(), context.getPower(), playerLoc.getX(), playerLoc.getY(), playerLoc.getZ(),
+            player.getBoundingBox(), player.getWorld().getDifficulty());
+    }
+    
+    /**
+     * Records trap activity at a block position to the event log
+     */
+    private void recordEvent(TrapEventLog.EventType type, Location location, UUID placer) {
+        if (eventLog.isRunning()) {
+            eventLog.record(type, tickScheduler.getCurrentTick(), location.getWorld().getName(),
+                location.getBlockX(), location.getBlockY(), location.getBlockZ(), placer);
+        }
+    }
+    
+    /**
+     * Gets the context of a trapped TNT explosion, capturing it if the TNT was not primed
+     * through ExplosionPrimeEvent
+     * @return the context, or null if the entity is not trapped TNT
+     */
+    private ExplosionContext findExplosion(TNTPrimed tnt) {
+        ExplosionContext context = explosionContexts.get(tnt.getEntityId());
+        return context != null ? context : captureExplosion(tnt);
+    }
+    
+    /**
+     * Builds and caches the context of a trapped TNT explosion for the rest of the tick
+     * @return the context, or null if the entity is not trapped TNT
+     */
+    private ExplosionContext captureExplosion(TNTPrimed tnt) {
+        ArmedTrap trap = findTrap(tnt);
+        if (trap == null) {
+            return null;
+        }
         
-        if (distance >= maxDistance) {
-            return 0.0; // Too far away for any damage
+        int entityId = tnt.getEntityId();
+        // Vanilla centres TNT explosions 1/16 of the entity height above its feet
+        Location center = tnt.getLocation().add(0, tnt.getHeight() * 0.0625, 0);
+        ExplosionContext context = new ExplosionContext(center, trap.getPlacer(), plugin.getSettings());
+        if (explosionContexts.put(entityId, context) == null) {
+            // Evict after this tick even if the explosion is cancelled before EntityExplodeEvent
+            tickScheduler.schedule(1L, TimingWheel.Kind.EXPIRY, () -> explosionContexts.remove(entityId));
+        }
+        return context;
+    }
+    
+    /**
+     * Stops tracking a trap whose entity is being unloaded, without forgetting it on disk
+     * @return a record to re-arm the trap from when the entity loads again, or null if it was not tracked
+     */
+    public TrapRecord detachTrap(TNTPrimed tnt) {
+        ArmedTrap trap = trapRegistry.remove(tnt.getEntityId());
+        if (trap == null) {
+            return null;
         }
         
-        // Base damage calculation (similar to vanilla)
-        double baseDamage = explosionPower * 7.0; // TNT base damage
-        double damageReduction = distance / (explosionPower * 2.0);
-        double rawDamage = baseDamage * (1.0 - damageReduction);
+        Location location = trap.getBlockLocation();
+        trapsChangedAt(trap);
+        return new TrapRecord(tnt.getUniqueId(), trap.getWorldId(),
+            location.getBlockX(), location.getBlockY(), location.getBlockZ(),
+            trap.getPlacer(), System.currentTimeMillis(), tnt.getFuseTicks());
+    }
+    
+    /**
+     * Resumes tracking a dormant or persisted trap whose primed TNT entity has been loaded again
+     */
+    public void trackRecovered(TNTPrimed tnt, TrapRecord record) {
+        if (!tnt.isValid() || trapRegistry.get(tnt.getEntityId()) != null) {
+            return;
+        }
         
-        // Apply environmental damage reduction (blocks, etc.)
-        // Simplified version - in reality Minecraft does raytracing for block protection
-        double environmentProtection = Math.min(0.8, distance / maxDistance); // More protection at distance
-        double finalDamage = rawDamage * (1.0 - environmentProtection * 0.3);
+        Location location = new Location(tnt.getWorld(), record.getX(), record.getY(), record.getZ());
+        ArmedTrap trap = new ArmedTrap(tnt, record.getPlacer(), location);
+        trapRegistry.register(trap, true);
+        trapsChangedAt(location);
+        scheduleDriftCheck(trap);
+        scheduleCleanup(location, tnt, tnt.getFuseTicks() + 5L);
+    }
+    
+    /**
+     * Keeps an armed trap filed under the cell its entity is in, so TNT carried off by water,
+     * pistons or knockback can still be triggered where it is now. Stops once the trap is
+     * disarmed or gone.
+     */
+    private void scheduleDriftCheck(ArmedTrap trap) {
+        TNTPrimed tnt = trap.getEntity();
+        tickScheduler.schedule(tnt, DRIFT_CHECK_TICKS, TimingWheel.Kind.EXPIRY, () -> {
+            if (!trap.isLive() || trapRegistry.get(tnt.getEntityId()) != trap) {
+                return;
+            }
+            
+            Location position = tnt.getLocation();
+            int fromX = trap.getFiledX();
+            int fromZ = trap.getFiledZ();
+            if (!trapRegistry.refile(trap, position.getBlockX(), position.getBlockZ())) {
+                return; // Disarmed
+            }
+            if (trap.getFiledX() != fromX || trap.getFiledZ() != fromZ) {
+                playerCells.invalidateAround(fromX, fromZ);
+                trapsChangedAt(trap);
+            }
+            scheduleDriftCheck(trap);
+        });
+    }
+    
+    private void scheduleCleanup(Location location, TNTPrimed tnt, long delay) {
+        int entityId = tnt.getEntityId();
+        tickScheduler.schedule(location, delay, TimingWheel.Kind.EXPIRY, () -> forgetTrap(entityId));
+    }
+    
+    /**
+     * Stops tracking a trap and removes it from the persisted journal
+     */
+    private void forgetTrap(int entityId) {
+        ArmedTrap trap = trapRegistry.remove(entityId);
+        if (trap != null) {
+            trapJournal.recordRemoved(trap.getEntity().getUniqueId());
+            trapsChangedAt(trap);
+        }
+    }
+    
+    /**
+     * Identifies a trapped TNT entity, using the in-memory registry first.
+     * Tagged entities the registry lost track of (e.g. after a reload) are found
+     * through their persistent data and registered again while they are still alive.
+     * @return the trap, or null if the entity is not trapped TNT
+     */
+    private ArmedTrap findTrap(TNTPrimed tnt) {
+        ArmedTrap trap = trapRegistry.get(tnt.getEntityId());
+        if (trap != null || !tntUtils.isTrappedTntEntity(tnt)) {
+            return trap;
+        }
         
-        // Ensure damage is positive and reasonable
-        return Math.max(0, Math.min(finalDamage, baseDamage));
+        trap = new ArmedTrap(tnt, tntUtils.getPlacer(tnt), tnt.getLocation().getBlock().getLocation());
+        if (tnt.isValid()) {
+            trapRegistry.register(trap, false);
+        }
+        return trap;
+    }
+    
+    /**
+     * Gets the number of armed traps currently tracked for proximity detection
+     */
+    public int getActiveTrapCount() {
+        return trapRegistry.getArmedCount() + virtualTraps.size();
+    }
+    
+    /**
+     * Gets the number of armed traps kept as virtual records
+     */
+    public int getVirtualTrapCount() {
+        return virtualTraps.size();
+    }
+    
+    /**
+     * Gets the number of armed traps in each world, keyed by world id
+     */
+    public Map<UUID, Integer> getActiveTrapCountsByWorld() {
+        Map<UUID, Integer> counts = new HashMap<>(trapRegistry.getArmedCountsByWorld());
+        virtualTraps.getWorldCounts().forEach((world, count) -> counts.merge(world, count, Integer::sum));
+        return counts;
+    }
+    
+    /**
+     * Gets the number of trap entities tracked, armed or already triggered
+     */
+    public int getTrackedTrapCount() {
+        return trapRegistry.size();
     }
     
     /**
      * Clean up tracking when plugin reloads
      */
     public void cleanup() {
-        trappedTntLocations.clear();
-        activeTrapTnt.clear();
+        // Journal the fuse each virtual trap has left, so it resumes from there after a restart
+        for (TrapRecord record : virtualTraps.snapshot(tickScheduler.getCurrentTick())) {
+            trapJournal.recordArmed(record);
+        }
+        virtualTraps.clear();
+        trapBlocks.clear();
+        trapRegistry.clear();
+        explosionContexts.clear();
+        synchronized (openClusters) {
+            openClusters.clear();
+        }
+        knockbackQueue.clear();
     }
 }
@@ -0,0 +1,89 @@
+package top.sanscraft.trappedtnt.metrics;
+
+/**
+ * Fixed-bucket histogram of durations in nanoseconds.
+ * Bucket boundaries are powers of two from 64 ns to ~0.5 s, so recording is a
+ * leading-zero count and an array increment. Percentiles are reported as the upper
+ * bound of the bucket they fall in, capped at the largest value seen.
+ */
+public class LatencyHistogram {
+    
+    private static final int MIN_SHIFT = 6;
+    private static final int BUCKETS = 24;
+    
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long total;
+    private long max;
+    
+    /**
+     * Records one duration
+     */
+    public void record(long nanos) {
+        int bucket = bucketOf(nanos);
+        counts[bucket]++;
+        count++;
+        total += nanos;
+        if (nanos > max) {
+            max = nanos;
+        }
+    }
+    
+    private static int bucketOf(long nanos) {
+        if (nanos < (1L << MIN_SHIFT)) {
+            return 0;
+        }
+        int bucket = 64 - Long.numberOfLeadingZeros(nanos) - MIN_SHIFT;
+        return Math.min(bucket, BUCKETS - 1);
+    }
+    
+    /**
+     * Gets the upper bound in nanoseconds of a bucket
+     */
+    private static long upperBound(int bucket) {
+        return bucket == BUCKETS - 1 ? Long.MAX_VALUE : 1L << (bucket + MIN_SHIFT);
+    }
+    
+    /**
+     * Gets an approximate percentile in nanoseconds
+     * @param percentile from 0 to 100
+     */
+    public long getPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(count * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max);
+            }
+        }
+        return max;
+    }
+    
+    public long getCount() {
+        return count;
+    }
+    
+    /**
+     * Gets the sum of all recorded durations in nanoseconds
+     */
+    public long getTotal() {
+        return total;
+    }
+    
+    public long getMax() {
+        return max;
+    }
+    
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = 0;
+        }
+        count = 0;
+        total = 0;
+        max = 0;
+    }
+}
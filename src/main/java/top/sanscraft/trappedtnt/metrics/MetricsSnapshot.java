@@ -0,0 +1,98 @@
+package top.sanscraft.trappedtnt.metrics;
+
+import java.util.Map;
+
+/**
+ * Immutable copy of the plugin's metrics at one tick.
+ * Built on the main thread and safe to read from any thread afterwards.
+ */
+public final class MetricsSnapshot {
+    
+    private final long timestampMillis;
+    private final Map<String, Integer> armedTrapsByWorld;
+    private final int trackedTraps;
+    private final int dormantTraps;
+    private final long[] counters;
+    private final long[] timerCounts;
+    private final long[] timerTotals;
+    private final long[] timerMedians;
+    private final long[] timerP99s;
+    private final long[] timerMaxima;
+    
+    /**
+     * @param armedTrapsByWorld Armed trap counts keyed by world name
+     * @param trackedTraps Trap entities tracked, armed or already triggered
+     * @param dormantTraps Traps waiting for their chunk to load
+     */
+    public MetricsSnapshot(PluginMetrics metrics, Map<String, Integer> armedTrapsByWorld, int trackedTraps, int dormantTraps) {
+        this.timestampMillis = System.currentTimeMillis();
+        this.armedTrapsByWorld = Map.copyOf(armedTrapsByWorld);
+        this.trackedTraps = trackedTraps;
+        this.dormantTraps = dormantTraps;
+        
+        PluginMetrics.Counter[] counterTypes = PluginMetrics.Counter.values();
+        this.counters = new long[counterTypes.length];
+        for (PluginMetrics.Counter counter : counterTypes) {
+            counters[counter.ordinal()] = metrics.getCount(counter);
+        }
+        
+        PluginMetrics.Timer[] timers = PluginMetrics.Timer.values();
+        this.timerCounts = new long[timers.length];
+        this.timerTotals = new long[timers.length];
+        this.timerMedians = new long[timers.length];
+        this.timerP99s = new long[timers.length];
+        this.timerMaxima = new long[timers.length];
+        for (PluginMetrics.Timer timer : timers) {
+            LatencyHistogram histogram = metrics.getHistogram(timer);
+            int i = timer.ordinal();
+            timerCounts[i] = histogram.getCount();
+            timerTotals[i] = histogram.getTotal();
+            timerMedians[i] = histogram.getPercentile(50);
+            timerP99s[i] = histogram.getPercentile(99);
+            timerMaxima[i] = histogram.getMax();
+        }
+    }
+    
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+    
+    public Map<String, Integer> getArmedTrapsByWorld() {
+        return armedTrapsByWorld;
+    }
+    
+    public int getTrackedTraps() {
+        return trackedTraps;
+    }
+    
+    public int getDormantTraps() {
+        return dormantTraps;
+    }
+    
+    public long getCount(PluginMetrics.Counter counter) {
+        return counters[counter.ordinal()];
+    }
+    
+    public long getTimerCount(PluginMetrics.Timer timer) {
+        return timerCounts[timer.ordinal()];
+    }
+    
+    /**
+     * Gets the total time recorded for a code path, in nanoseconds
+     */
+    public long getTimerTotal(PluginMetrics.Timer timer) {
+        return timerTotals[timer.ordinal()];
+    }
+    
+    public long getTimerMedian(PluginMetrics.Timer timer) {
+        return timerMedians[timer.ordinal()];
+    }
+    
+    public long getTimerP99(PluginMetrics.Timer timer) {
+        return timerP99s[timer.ordinal()];
+    }
+    
+    public long getTimerMax(PluginMetrics.Timer timer) {
+        return timerMaxima[timer.ordinal()];
+    }
+}
@@ -0,0 +1,184 @@
+package top.sanscraft.trappedtnt.metrics;
+
+import top.sanscraft.trappedtnt.scheduler.PlatformScheduler;
+
+/**
+ * Handler timings and activity counters behind /trappedtnt stats.
+ * Handlers call {@link #startTimer()} and {@link #stopTimer(Timer, long)} around their work;
+ * while disabled that is one field read and a branch, and nothing is recorded.
+ * Main-thread only. On region-threaded servers handlers record from several threads without
+ * locking, so an occasional sample or count can be lost and the statistics are approximate.
+ */
+public class PluginMetrics implements Runnable {
+    
+    /**
+     * Timed code paths
+     */
+    public enum Timer {
+        BLOCK_PLACE("BlockPlace"),
+        PLAYER_MOVE("PlayerMove"),
+        ENTITY_EXPLODE("EntityExplode"),
+        ENTITY_DAMAGE("EntityDamageByEntity"),
+        WORLDGUARD_CHECK("WorldGuard check");
+        
+        private final String displayName;
+        
+        Timer(String displayName) {
+            this.displayName = displayName;
+        }
+        
+        public String getDisplayName() {
+            return displayName;
+        }
+    }
+    
+    /**
+     * Counted trap activity
+     */
+    public enum Counter {
+        PLACEMENTS("Placements"),
+        TRIGGERS("Triggers"),
+        EXPLOSIONS("Explosions"),
+        SHIELD_PENALTIES("Shield penalties"),
+        REGION_DENIALS("Region denials"),
+        MERGED_DETONATIONS("Merged detonations"),
+        CHUNK_LIMIT_DENIALS("Chunk limit denials"),
+        PLAYER_LIMIT_DENIALS("Player limit denials"),
+        DEFERRED_DETONATIONS("Deferred detonations"),
+        ENTITY_TRIGGERS("Entity triggers");
+        
+        private final String displayName;
+        
+        Counter(String displayName) {
+            this.displayName = displayName;
+        }
+        
+        public String getDisplayName() {
+            return displayName;
+        }
+    }
+    
+    private final PlatformScheduler scheduler;
+    private final LatencyHistogram[] histograms = new LatencyHistogram[Timer.values().length];
+    // Time spent in each path during the current tick, and the totals over all ticks
+    private final long[] tickNanos = new long[Timer.values().length];
+    private final long[] tickTotalNanos = new long[Timer.values().length];
+    private final long[] tickMaxNanos = new long[Timer.values().length];
+    private final long[] counters = new long[Counter.values().length];
+    private long ticks;
+    private boolean enabled;
+    private PlatformScheduler.Task task;
+    
+    public PluginMetrics(PlatformScheduler scheduler) {
+        this.scheduler = scheduler;
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+    
+    /**
+     * Enables or disables recording; statistics are kept until reset
+     */
+    public void setEnabled(boolean enabled) {
+        if (enabled == this.enabled) {
+            return;
+        }
+        this.enabled = enabled;
+        if (enabled) {
+            task = scheduler.runTimer(this, 1L, 1L);
+        } else if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Starts timing a code path
+     * @return the start time to pass to {@link #stopTimer(Timer, long)}, or 0 while disabled
+     */
+    public long startTimer() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+    
+    /**
+     * Records the time since {@link #startTimer()}
+     */
+    public void stopTimer(Timer timer, long start) {
+        if (start == 0L) {
+            return;
+        }
+        long elapsed = System.nanoTime() - start;
+        histograms[timer.ordinal()].record(elapsed);
+        tickNanos[timer.ordinal()] += elapsed;
+    }
+    
+    public void increment(Counter counter) {
+        if (enabled) {
+            counters[counter.ordinal()]++;
+        }
+    }
+    
+    /**
+     * Closes the current tick's per-path totals
+     */
+    @Override
+    public void run() {
+        for (int i = 0; i < tickNanos.length; i++) {
+            long nanos = tickNanos[i];
+            tickTotalNanos[i] += nanos;
+            if (nanos > tickMaxNanos[i]) {
+                tickMaxNanos[i] = nanos;
+            }
+            tickNanos[i] = 0;
+        }
+        ticks++;
+    }
+    
+    public LatencyHistogram getHistogram(Timer timer) {
+        return histograms[timer.ordinal()];
+    }
+    
+    /**
+     * Gets the average time per tick spent in a code path, in nanoseconds
+     */
+    public long getAverageTickNanos(Timer timer) {
+        return ticks == 0 ? 0 : tickTotalNanos[timer.ordinal()] / ticks;
+    }
+    
+    /**
+     * Gets the most time spent in a code path during a single tick, in nanoseconds
+     */
+    public long getMaxTickNanos(Timer timer) {
+        return tickMaxNanos[timer.ordinal()];
+    }
+    
+    public long getCount(Counter counter) {
+        return counters[counter.ordinal()];
+    }
+    
+    /**
+     * Gets the number of ticks measured since the last reset
+     */
+    public long getTicks() {
+        return ticks;
+    }
+    
+    public void reset() {
+        for (LatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+        for (int i = 0; i < tickNanos.length; i++) {
+            tickNanos[i] = 0;
+            tickTotalNanos[i] = 0;
+            tickMaxNanos[i] = 0;
+        }
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = 0;
+        }
+        ticks = 0;
+    }
+}
@@ -0,0 +1,165 @@
+package top.sanscraft.trappedtnt.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import top.sanscraft.trappedtnt.scheduler.PlatformScheduler;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Serves plugin metrics in the Prometheus text format over HTTP.
+ * A snapshot is captured on the main or global region thread once per tick; scrapes are rendered on the
+ * exporter's own thread from the latest snapshot and never wait on the server.
+ */
+public class PrometheusExporter implements Runnable {
+    
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    
+    private final PlatformScheduler scheduler;
+    private final Supplier<MetricsSnapshot> snapshotSupplier;
+    private volatile MetricsSnapshot snapshot;
+    private HttpServer server;
+    private ExecutorService executor;
+    private PlatformScheduler.Task task;
+    
+    /**
+     * @param snapshotSupplier Captures the current metrics; called on the main or global region thread every tick
+     */
+    public PrometheusExporter(PlatformScheduler scheduler, Supplier<MetricsSnapshot> snapshotSupplier) {
+        this.scheduler = scheduler;
+        this.snapshotSupplier = snapshotSupplier;
+    }
+    
+    /**
+     * Starts serving /metrics on the given address, replacing any running server
+     */
+    public void start(String host, int port) throws IOException {
+        stop();
+        snapshot = snapshotSupplier.get();
+        
+        HttpServer httpServer = HttpServer.create(new InetSocketAddress(host, port), 0);
+        httpServer.createContext("/metrics", this::handle);
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "TrappedTnt-Metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        httpServer.setExecutor(executor);
+        httpServer.start();
+        server = httpServer;
+        task = scheduler.runTimer(this, 1L, 1L);
+    }
+    
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+    
+    public boolean isRunning() {
+        return server != null;
+    }
+    
+    /**
+     * Publishes this tick's snapshot
+     */
+    @Override
+    public void run() {
+        snapshot = snapshotSupplier.get();
+    }
+    
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod()) && !"HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            
+            byte[] body = render(snapshot).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            if ("HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+    
+    /**
+     * Renders a snapshot in the Prometheus text exposition format
+     */
+    static String render(MetricsSnapshot snapshot) {
+        StringBuilder out = new StringBuilder(2048);
+        
+        header(out, "trappedtnt_armed_traps", "gauge", "Armed trapped TNT that proximity can trigger");
+        for (Map.Entry<String, Integer> entry : new TreeMap<>(snapshot.getArmedTrapsByWorld()).entrySet()) {
+            out.append("trappedtnt_armed_traps{world=\"").append(escape(entry.getKey())).append("\"} ")
+                .append(entry.getValue()).append('\n');
+        }
+        header(out, "trappedtnt_tracked_traps", "gauge", "Trapped TNT entities tracked, armed or already triggered");
+        out.append("trappedtnt_tracked_traps ").append(snapshot.getTrackedTraps()).append('\n');
+        header(out, "trappedtnt_dormant_traps", "gauge", "Traps in unloaded chunks waiting to be re-armed");
+        out.append("trappedtnt_dormant_traps ").append(snapshot.getDormantTraps()).append('\n');
+        
+        for (PluginMetrics.Counter counter : PluginMetrics.Counter.values()) {
+            String name = "trappedtnt_" + counter.name().toLowerCase(Locale.ROOT) + "_total";
+            header(out, name, "counter", counter.getDisplayName() + " since the statistics were last reset");
+            out.append(name).append(' ').append(snapshot.getCount(counter)).append('\n');
+        }
+        
+        header(out, "trappedtnt_handler_latency_seconds", "summary", "Time spent in trapped TNT handlers");
+        for (PluginMetrics.Timer timer : PluginMetrics.Timer.values()) {
+            String label = timer.name().toLowerCase(Locale.ROOT);
+            sample(out, "trappedtnt_handler_latency_seconds", label, "0.5", snapshot.getTimerMedian(timer));
+            sample(out, "trappedtnt_handler_latency_seconds", label, "0.99", snapshot.getTimerP99(timer));
+            sample(out, "trappedtnt_handler_latency_seconds_sum", label, null, snapshot.getTimerTotal(timer));
+            out.append("trappedtnt_handler_latency_seconds_count{handler=\"").append(label).append("\"} ")
+                .append(snapshot.getTimerCount(timer)).append('\n');
+        }
+        header(out, "trappedtnt_handler_latency_max_seconds", "gauge", "Slowest recorded call of each handler");
+        for (PluginMetrics.Timer timer : PluginMetrics.Timer.values()) {
+            sample(out, "trappedtnt_handler_latency_max_seconds", timer.name().toLowerCase(Locale.ROOT), null, snapshot.getTimerMax(timer));
+        }
+        return out.toString();
+    }
+    
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+    
+    private static void sample(StringBuilder out, String name, String handler, String quantile, long nanos) {
+        out.append(name).append("{handler=\"").append(handler).append('"');
+        if (quantile != null) {
+            out.append(",quantile=\"").append(quantile).append('"');
+        }
+        out.append("} ").append(nanos / 1e9).append('\n');
+    }
+    
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
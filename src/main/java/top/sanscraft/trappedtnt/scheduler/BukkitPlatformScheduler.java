@@ -0,0 +1,51 @@
+package top.sanscraft.trappedtnt.scheduler;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+/**
+ * Runs every task on the main thread through the Bukkit scheduler
+ */
+class BukkitPlatformScheduler implements PlatformScheduler {
+    
+    private final Plugin plugin;
+    
+    BukkitPlatformScheduler(Plugin plugin) {
+        this.plugin = plugin;
+    }
+    
+    @Override
+    public boolean isRegionThreaded() {
+        return false;
+    }
+    
+    @Override
+    public Task runTimer(Runnable work, long delayTicks, long periodTicks) {
+        BukkitTask task = Bukkit.getScheduler().runTaskTimer(plugin, work, delayTicks, periodTicks);
+        return task::cancel;
+    }
+    
+    @Override
+    public void runLater(Runnable work, long delayTicks) {
+        Bukkit.getScheduler().runTaskLater(plugin, work, delayTicks);
+    }
+    
+    @Override
+    public void runAt(Location location, Runnable work, long delayTicks) {
+        runLater(work, delayTicks);
+    }
+    
+    @Override
+    public void runFor(Entity entity, Runnable work, Runnable retired, long delayTicks) {
+        runLater(() -> {
+            if (entity.isValid()) {
+                work.run();
+            } else if (retired != null) {
+                retired.run();
+            }
+        }, delayTicks);
+    }
+}
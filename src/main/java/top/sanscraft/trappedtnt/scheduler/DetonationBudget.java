@@ -0,0 +1,60 @@
+package top.sanscraft.trappedtnt.scheduler;
+
+import java.util.Arrays;
+
+/**
+ * Spreads triggered detonations over ticks so no tick sets off more than a fixed number.
+ * Each detonation is given the earliest tick that still has room; the caller delays it by
+ * lengthening the fuse ({@link #fuseTicks}), so deferring needs no extra scheduled work. Thread-safe.
+ */
+public class DetonationBudget {
+    
+    /** Ticks ahead a detonation can be deferred, a power of two */
+    private static final int HORIZON = 64;
+    private static final int MASK = HORIZON - 1;
+    
+    private final long[] slotTicks = new long[HORIZON];
+    private final int[] slotCounts = new int[HORIZON];
+    
+    public DetonationBudget() {
+        Arrays.fill(slotTicks, -1L);
+    }
+    
+    /**
+     * Reserves a tick for one detonation
+     * @param tick The current tick
+     * @param perTick Detonations allowed per tick, 0 for no limit
+     * @return the number of ticks the detonation has to wait, 0 to go off right away
+     */
+    public synchronized int reserve(long tick, int perTick) {
+        if (perTick <= 0) {
+            return 0;
+        }
+        
+        for (int delay = 0; delay < HORIZON; delay++) {
+            long slotTick = tick + delay;
+            int slot = (int) (slotTick & MASK);
+            if (slotTicks[slot] != slotTick) {
+                // Slot still holds an old tick, reuse it
+                slotTicks[slot] = slotTick;
+                slotCounts[slot] = 0;
+            }
+            if (slotCounts[slot] < perTick) {
+                slotCounts[slot]++;
+                return delay;
+            }
+        }
+        // Every tick within reach is full; go off at the far end anyway
+        return MASK;
+    }
+    
+    /**
+     * Gets the fuse that makes primed TNT go off a number of ticks after the ones that go off
+     * right away. Primed TNT counts its fuse down before checking it, so fuses 0 and 1 both
+     * go off on its next tick and each tick of delay needs one more.
+     * @param delay Ticks returned by {@link #reserve}
+     */
+    public static int fuseTicks(int delay) {
+        return delay > 0 ? delay + 1 : 0;
+    }
+}
@@ -0,0 +1,108 @@
+package top.sanscraft.trappedtnt.scheduler;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.Plugin;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.function.Consumer;
+
+/**
+ * Runs tasks through Folia's global, region and entity schedulers.
+ * The plugin compiles against the Spigot API, so the schedulers are looked up reflectively
+ * once and invoked through cached methods.
+ */
+class FoliaPlatformScheduler implements PlatformScheduler {
+    
+    private static final String PACKAGE = "io.papermc.paper.threadedregions.scheduler.";
+    
+    private final Plugin plugin;
+    private final Object globalScheduler;
+    private final Object regionScheduler;
+    private final Method globalRunDelayed;
+    private final Method globalRunAtFixedRate;
+    private final Method regionRunDelayed;
+    private final Method getEntityScheduler;
+    private final Method entityRunDelayed;
+    private final Method cancelTask;
+    
+    FoliaPlatformScheduler(Plugin plugin) throws ReflectiveOperationException {
+        this.plugin = plugin;
+        Class<?> globalType = Class.forName(PACKAGE + "GlobalRegionScheduler");
+        Class<?> regionType = Class.forName(PACKAGE + "RegionScheduler");
+        Class<?> entityType = Class.forName(PACKAGE + "EntityScheduler");
+        Class<?> taskType = Class.forName(PACKAGE + "ScheduledTask");
+        
+        this.globalScheduler = Bukkit.class.getMethod("getGlobalRegionScheduler").invoke(null);
+        this.regionScheduler = Bukkit.class.getMethod("getRegionScheduler").invoke(null);
+        this.globalRunDelayed = globalType.getMethod("runDelayed", Plugin.class, Consumer.class, long.class);
+        this.globalRunAtFixedRate = globalType.getMethod("runAtFixedRate", Plugin.class, Consumer.class, long.class, long.class);
+        this.regionRunDelayed = regionType.getMethod("runDelayed", Plugin.class, Location.class, Consumer.class, long.class);
+        this.getEntityScheduler = Entity.class.getMethod("getScheduler");
+        this.entityRunDelayed = entityType.getMethod("runDelayed", Plugin.class, Consumer.class, Runnable.class, long.class);
+        this.cancelTask = taskType.getMethod("cancel");
+    }
+    
+    /**
+     * Checks if the running server is region-threaded
+     */
+    static boolean isSupported() {
+        try {
+            Class.forName("io.papermc.paper.threadedregions.RegionizedServer");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+    
+    @Override
+    public boolean isRegionThreaded() {
+        return true;
+    }
+    
+    @Override
+    public Task runTimer(Runnable work, long delayTicks, long periodTicks) {
+        Object task = invoke(globalRunAtFixedRate, globalScheduler, plugin, consumer(work), Math.max(1L, delayTicks), Math.max(1L, periodTicks));
+        return () -> invoke(cancelTask, task);
+    }
+    
+    @Override
+    public void runLater(Runnable work, long delayTicks) {
+        invoke(globalRunDelayed, globalScheduler, plugin, consumer(work), Math.max(1L, delayTicks));
+    }
+    
+    @Override
+    public void runAt(Location location, Runnable work, long delayTicks) {
+        invoke(regionRunDelayed, regionScheduler, plugin, location, consumer(work), Math.max(1L, delayTicks));
+    }
+    
+    @Override
+    public void runFor(Entity entity, Runnable work, Runnable retired, long delayTicks) {
+        Object scheduler = invoke(getEntityScheduler, entity);
+        Object task = invoke(entityRunDelayed, scheduler, plugin, consumer(work), retired, Math.max(1L, delayTicks));
+        if (task == null && retired != null) {
+            // The entity was already removed, so the task was never scheduled
+            retired.run();
+        }
+    }
+    
+    private static Consumer<Object> consumer(Runnable work) {
+        return task -> work.run();
+    }
+    
+    private static Object invoke(Method method, Object target, Object... args) {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException("Scheduler call " + method.getName() + " failed", cause);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Scheduler call " + method.getName() + " is not accessible", e);
+        }
+    }
+}
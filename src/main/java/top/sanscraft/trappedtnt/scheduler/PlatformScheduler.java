@@ -0,0 +1,65 @@
+package top.sanscraft.trappedtnt.scheduler;
+
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.Plugin;
+
+/**
+ * Runs plugin tasks on the thread that owns the state they touch.
+ * On Bukkit and Paper everything runs on the main thread; on region-threaded servers (Folia)
+ * work tied to a location or entity runs on the region thread that owns it, and
+ * everything else on the global region thread.
+ */
+public interface PlatformScheduler {
+    
+    /**
+     * Checks if the server ticks regions on separate threads
+     */
+    boolean isRegionThreaded();
+    
+    /**
+     * Runs a task repeatedly on the main or global region thread
+     */
+    Task runTimer(Runnable work, long delayTicks, long periodTicks);
+    
+    /**
+     * Runs a task once on the main or global region thread
+     * @param delayTicks ticks to wait, at least 1
+     */
+    void runLater(Runnable work, long delayTicks);
+    
+    /**
+     * Runs a task once on the thread that owns a location
+     * @param delayTicks ticks to wait, at least 1
+     */
+    void runAt(Location location, Runnable work, long delayTicks);
+    
+    /**
+     * Runs a task once on the thread that owns an entity, following it across regions
+     * @param retired Run instead of the task if the entity is removed first, may be null
+     * @param delayTicks ticks to wait, at least 1
+     */
+    void runFor(Entity entity, Runnable work, Runnable retired, long delayTicks);
+    
+    /**
+     * A repeating task that can be cancelled
+     */
+    interface Task {
+        
+        void cancel();
+    }
+    
+    /**
+     * Picks the scheduler for the running server
+     */
+    static PlatformScheduler create(Plugin plugin) {
+        if (FoliaPlatformScheduler.isSupported()) {
+            try {
+                return new FoliaPlatformScheduler(plugin);
+            } catch (ReflectiveOperationException e) {
+                plugin.getLogger().warning("Region-threaded server detected but its schedulers are not accessible: " + e);
+            }
+        }
+        return new BukkitPlatformScheduler(plugin);
+    }
+}
@@ -0,0 +1,154 @@
+package top.sanscraft.trappedtnt.scheduler;
+
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.Plugin;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.logging.Level;
+
+/**
+ * Runs the plugin's deferred work from a single repeating task.
+ * Arming delays, expiry cleanup and post-damage knockback are batched into per-tick
+ * buckets of a {@link TimingWheel} instead of each getting its own BukkitTask.
+ * On region-threaded servers there is no single thread to drain the wheel from, so each
+ * task is handed to the region or entity scheduler that owns the state it touches.
+ */
+public class TickScheduler implements Runnable {
+    
+    private final Plugin plugin;
+    private final PlatformScheduler platform;
+    private final boolean regionThreaded;
+    private final TimingWheel wheel;
+    // Pending counts and tick counter used instead of the wheel's on region-threaded servers
+    private final AtomicIntegerArray regionPending = new AtomicIntegerArray(TimingWheel.Kind.values().length);
+    private volatile long regionTick;
+    // Bumped by stop() so tasks already handed to region schedulers are dropped
+    private volatile int generation;
+    private PlatformScheduler.Task task;
+    
+    public TickScheduler(Plugin plugin, PlatformScheduler platform) {
+        this.plugin = plugin;
+        this.platform = platform;
+        this.regionThreaded = platform.isRegionThreaded();
+        this.wheel = new TimingWheel(plugin.getLogger());
+    }
+    
+    public void start() {
+        if (task == null) {
+            task = platform.runTimer(this, 1L, 1L);
+        }
+    }
+    
+    /**
+     * Stops the wheel and drops all pending work
+     */
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        wheel.clear();
+        generation++;
+        for (int i = 0; i < regionPending.length(); i++) {
+            regionPending.set(i, 0);
+        }
+    }
+    
+    /**
+     * Runs a task on the main or global region thread after the given number of ticks
+     */
+    public void schedule(long delayTicks, TimingWheel.Kind kind, Runnable work) {
+        if (regionThreaded) {
+            platform.runLater(track(kind, work), delayTicks);
+        } else {
+            wheel.schedule(delayTicks, kind, work);
+        }
+    }
+    
+    /**
+     * Runs a task on the thread that owns a location after the given number of ticks
+     */
+    public void schedule(Location location, long delayTicks, TimingWheel.Kind kind, Runnable work) {
+        if (regionThreaded) {
+            platform.runAt(location, track(kind, work), delayTicks);
+        } else {
+            wheel.schedule(delayTicks, kind, work);
+        }
+    }
+    
+    /**
+     * Runs a task on the thread that owns an entity after the given number of ticks.
+     * On region-threaded servers the task is dropped if the entity is removed first.
+     */
+    public void schedule(Entity entity, long delayTicks, TimingWheel.Kind kind, Runnable work) {
+        if (regionThreaded) {
+            int scheduledIn = generation;
+            regionPending.incrementAndGet(kind.ordinal());
+            platform.runFor(entity, track(kind, work, scheduledIn), () -> release(kind, scheduledIn), delayTicks);
+        } else {
+            wheel.schedule(delayTicks, kind, work);
+        }
+    }
+    
+    /**
+     * Checks if tasks may run on more than one thread
+     */
+    public boolean isRegionThreaded() {
+        return regionThreaded;
+    }
+    
+    /**
+     * Gets the number of ticks since the scheduler was created
+     */
+    public long getCurrentTick() {
+        return regionThreaded ? regionTick : wheel.getTick();
+    }
+    
+    /**
+     * Gets the number of pending tasks of a kind
+     */
+    public int getPending(TimingWheel.Kind kind) {
+        return regionThreaded ? regionPending.get(kind.ordinal()) : wheel.getPending(kind);
+    }
+    
+    @Override
+    public void run() {
+        if (regionThreaded) {
+            // Only the global region thread writes the counter
+            regionTick++;
+        } else {
+            wheel.advance();
+        }
+    }
+    
+    private Runnable track(TimingWheel.Kind kind, Runnable work) {
+        regionPending.incrementAndGet(kind.ordinal());
+        return track(kind, work, generation);
+    }
+    
+    private Runnable track(TimingWheel.Kind kind, Runnable work, int scheduledIn) {
+        return () -> {
+            if (!release(kind, scheduledIn)) {
+                return;
+            }
+            try {
+                work.run();
+            } catch (RuntimeException e) {
+                plugin.getLogger().log(Level.SEVERE, "Deferred trapped TNT task failed", e);
+            }
+        };
+    }
+    
+    /**
+     * Counts a region task as done
+     * @return false if the scheduler was stopped since the task was scheduled
+     */
+    private boolean release(TimingWheel.Kind kind, int scheduledIn) {
+        if (scheduledIn != generation) {
+            return false;
+        }
+        regionPending.decrementAndGet(kind.ordinal());
+        return true;
+    }
+}
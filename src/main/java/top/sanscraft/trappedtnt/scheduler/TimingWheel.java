@@ -0,0 +1,209 @@
+package top.sanscraft.trappedtnt.scheduler;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Hierarchical timing wheel for deferred work measured in server ticks.
+ * Three levels of buckets cover 256 ticks, ~13 minutes and ~14 hours; work further
+ * out waits in the last level and is re-filed as the wheel turns. Scheduling and
+ * expiry are O(1) per task, and task nodes are recycled through a small pool.
+ * Main-thread only.
+ */
+public class TimingWheel {
+    
+    /**
+     * Kind of deferred work, used for pending counts
+     */
+    public enum Kind {
+        ARMING,
+        EXPIRY,
+        KNOCKBACK,
+        DETONATION
+    }
+    
+    private static final int LEVEL0_BITS = 8;
+    private static final int LEVEL_BITS = 6;
+    private static final int LEVEL0_SIZE = 1 << LEVEL0_BITS;
+    private static final int LEVEL_SIZE = 1 << LEVEL_BITS;
+    private static final int LEVEL1_SHIFT = LEVEL0_BITS;
+    private static final int LEVEL2_SHIFT = LEVEL0_BITS + LEVEL_BITS;
+    private static final long LEVEL1_SPAN = 1L << LEVEL1_SHIFT;
+    private static final long LEVEL2_SPAN = 1L << LEVEL2_SHIFT;
+    private static final long MAX_SPAN = 1L << (LEVEL2_SHIFT + LEVEL_BITS);
+    private static final int MAX_POOLED = 1024;
+    
+    private final Bucket[] level0 = newLevel(LEVEL0_SIZE);
+    private final Bucket[] level1 = newLevel(LEVEL_SIZE);
+    private final Bucket[] level2 = newLevel(LEVEL_SIZE);
+    private final int[] pending = new int[Kind.values().length];
+    private final Logger logger;
+    private long now;
+    private int size;
+    private Node pool;
+    private int pooled;
+    
+    public TimingWheel(Logger logger) {
+        this.logger = logger;
+    }
+    
+    private static Bucket[] newLevel(int size) {
+        Bucket[] level = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            level[i] = new Bucket();
+        }
+        return level;
+    }
+    
+    /**
+     * Schedules a task to run after the given number of ticks
+     * @param delayTicks ticks to wait, at least 1
+     */
+    public void schedule(long delayTicks, Kind kind, Runnable task) {
+        Node node = pool;
+        if (node != null) {
+            pool = node.next;
+            node.next = null;
+            pooled--;
+        } else {
+            node = new Node();
+        }
+        node.deadline = now + Math.max(1L, delayTicks);
+        node.kind = kind;
+        node.task = task;
+        file(node);
+        pending[kind.ordinal()]++;
+        size++;
+    }
+    
+    /**
+     * Advances the wheel by one tick and runs every task that is due
+     */
+    public void advance() {
+        now++;
+        int index0 = (int) (now & (LEVEL0_SIZE - 1));
+        if (index0 == 0) {
+            int index1 = (int) ((now >>> LEVEL1_SHIFT) & (LEVEL_SIZE - 1));
+            if (index1 == 0) {
+                cascade(level2[(int) ((now >>> LEVEL2_SHIFT) & (LEVEL_SIZE - 1))]);
+            }
+            cascade(level1[index1]);
+        }
+        
+        Bucket bucket = level0[index0];
+        Node node = bucket.head;
+        bucket.head = null;
+        bucket.tail = null;
+        while (node != null) {
+            Node next = node.next;
+            Runnable task = node.task;
+            pending[node.kind.ordinal()]--;
+            size--;
+            recycle(node);
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                // One failing task must not drop the rest of the bucket
+                logger.log(Level.SEVERE, "Deferred trapped TNT task failed", e);
+            }
+            node = next;
+        }
+    }
+    
+    /**
+     * Gets the number of ticks the wheel has advanced
+     */
+    public long getTick() {
+        return now;
+    }
+    
+    /**
+     * Gets the number of scheduled tasks of a kind
+     */
+    public int getPending(Kind kind) {
+        return pending[kind.ordinal()];
+    }
+    
+    /**
+     * Gets the number of scheduled tasks
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Drops every scheduled task without running it
+     */
+    public void clear() {
+        for (Bucket[] level : new Bucket[][] {level0, level1, level2}) {
+            for (Bucket bucket : level) {
+                bucket.head = null;
+                bucket.tail = null;
+            }
+        }
+        for (int i = 0; i < pending.length; i++) {
+            pending[i] = 0;
+        }
+        size = 0;
+    }
+    
+    private void file(Node node) {
+        long delay = node.deadline - now;
+        Bucket bucket;
+        if (delay < LEVEL1_SPAN) {
+            bucket = level0[(int) (node.deadline & (LEVEL0_SIZE - 1))];
+        } else if (delay < LEVEL2_SPAN) {
+            bucket = level1[(int) ((node.deadline >>> LEVEL1_SHIFT) & (LEVEL_SIZE - 1))];
+        } else {
+            // Beyond the last level the task waits in its farthest bucket and is re-filed from there
+            long slot = Math.min(node.deadline, now + MAX_SPAN - 1);
+            bucket = level2[(int) ((slot >>> LEVEL2_SHIFT) & (LEVEL_SIZE - 1))];
+        }
+        bucket.append(node);
+    }
+    
+    private void cascade(Bucket bucket) {
+        Node node = bucket.head;
+        bucket.head = null;
+        bucket.tail = null;
+        while (node != null) {
+            Node next = node.next;
+            node.next = null;
+            file(node);
+            node = next;
+        }
+    }
+    
+    private void recycle(Node node) {
+        node.task = null;
+        node.kind = null;
+        if (pooled < MAX_POOLED) {
+            node.next = pool;
+            pool = node;
+            pooled++;
+        } else {
+            node.next = null;
+        }
+    }
+    
+    private static final class Bucket {
+        private Node head;
+        private Node tail;
+        
+        private void append(Node node) {
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+        }
+    }
+    
+    private static final class Node {
+        private long deadline;
+        private Kind kind;
+        private Runnable task;
+        private Node next;
+    }
+}
@@ -0,0 +1,304 @@
+package top.sanscraft.trappedtnt.storage;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Audit trail of trap activity written as rotating CSV files.
+ * Recording an event only claims a slot in a bounded lock-free ring buffer and copies
+ * a few fields into it; a background writer formats and writes the rows. When the
+ * buffer is full new events are dropped and counted rather than blocking the caller.
+ */
+public class TrapEventLog {
+    
+    /**
+     * Kinds of recorded trap activity
+     */
+    public enum EventType {
+        PLACE,
+        ARM,
+        TRIGGER,
+        EXPLODE,
+        SHIELD_PENALTY;
+        
+        private final String column = name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+    
+    private static final String HEADER = "time_ms,tick,event,world,x,y,z,placer";
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+    
+    private final File directory;
+    private final String baseName;
+    private final Logger logger;
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    
+    private volatile Ring ring;
+    private Thread writer;
+    
+    /**
+     * @param directory Folder the log files are written to
+     * @param baseName File name without extension; rotated files get .1, .2, ... appended
+     */
+    public TrapEventLog(File directory, String baseName, Logger logger) {
+        this.directory = directory;
+        this.baseName = baseName;
+        this.logger = logger;
+    }
+    
+    /**
+     * Starts recording, replacing any running writer
+     * @param capacity ring buffer slots, rounded up to a power of two
+     * @param maxFileBytes size at which the current file is rotated
+     * @param maxFiles number of files kept, including the current one
+     */
+    public void start(int capacity, long maxFileBytes, int maxFiles) {
+        stop();
+        Ring started = new Ring(capacity);
+        ring = started;
+        writer = new Thread(() -> runWriter(started, maxFileBytes, maxFiles), "TrappedTnt-EventLog");
+        writer.setDaemon(true);
+        writer.start();
+    }
+    
+    /**
+     * Stops recording after writing every buffered event
+     */
+    public void stop() {
+        Ring stopping = ring;
+        if (stopping == null) {
+            return;
+        }
+        ring = null;
+        stopping.closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writer = null;
+    }
+    
+    public boolean isRunning() {
+        return ring != null;
+    }
+    
+    /**
+     * Records an event; a no-op while the log is stopped
+     * @param placer The trap's placer, or null if unknown
+     */
+    public void record(EventType type, long tick, String world, int x, int y, int z, UUID placer) {
+        Ring current = ring;
+        if (current != null && !current.offer(type, System.currentTimeMillis(), tick, world, x, y, z, placer)) {
+            dropped.incrementAndGet();
+        }
+    }
+    
+    /**
+     * Gets the number of events written to disk
+     */
+    public long getWritten() {
+        return written.get();
+    }
+    
+    /**
+     * Gets the number of events dropped because the buffer was full
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+    
+    private void runWriter(Ring source, long maxFileBytes, int maxFiles) {
+        directory.mkdirs();
+        File current = rotatedFile(0);
+        StringBuilder row = new StringBuilder(128);
+        Writer out = null;
+        
+        try {
+            long size = current.length();
+            out = open(current, size == 0);
+            if (size == 0) {
+                size = HEADER.length() + 1;
+            }
+            
+            while (true) {
+                boolean closed = source.closed;
+                int drained = 0;
+                while (source.poll(row)) {
+                    out.write(row.toString());
+                    size += row.length();
+                    row.setLength(0);
+                    drained++;
+                    
+                    if (size >= maxFileBytes) {
+                        out.close();
+                        rotate(maxFiles);
+                        out = open(current, true);
+                        size = HEADER.length() + 1;
+                    }
+                }
+                
+                if (drained > 0) {
+                    out.flush();
+                    written.addAndGet(drained);
+                } else if (closed) {
+                    break;
+                } else {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+            }
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Trap event log writer failed, events will no longer be recorded", e);
+            if (ring == source) {
+                ring = null;
+            }
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException ignored) {
+                    // Nothing left to write
+                }
+            }
+        }
+    }
+    
+    private static Writer open(File file, boolean writeHeader) throws IOException {
+        Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8));
+        if (writeHeader) {
+            out.write(HEADER);
+            out.write('\n');
+        }
+        return out;
+    }
+    
+    /**
+     * Shifts name.csv to name.1.csv, name.1.csv to name.2.csv and so on, dropping the oldest
+     */
+    private void rotate(int maxFiles) throws IOException {
+        for (int i = maxFiles - 1; i >= 0; i--) {
+            File from = rotatedFile(i);
+            if (!from.exists()) {
+                continue;
+            }
+            boolean moved = i == maxFiles - 1 ? from.delete() : from.renameTo(rotatedFile(i + 1));
+            if (!moved) {
+                throw new IOException("Could not rotate " + from);
+            }
+        }
+    }
+    
+    private File rotatedFile(int index) {
+        return new File(directory, index == 0 ? baseName + ".csv" : baseName + "." + index + ".csv");
+    }
+    
+    /**
+     * Bounded multi-producer, single-consumer ring with one sequence number per slot.
+     * Event fields are stored in parallel arrays so recording allocates nothing.
+     */
+    private static final class Ring {
+        private final int mask;
+        private final AtomicLongArray sequences;
+        private final AtomicLong tail = new AtomicLong();
+        private long head; // Consumer only
+        private volatile boolean closed;
+        
+        private final EventType[] types;
+        private final long[] times;
+        private final long[] ticks;
+        private final String[] worlds;
+        private final int[] xs;
+        private final int[] ys;
+        private final int[] zs;
+        private final UUID[] placers;
+        
+        private Ring(int capacity) {
+            int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+            this.mask = size - 1;
+            this.sequences = new AtomicLongArray(size);
+            for (int i = 0; i < size; i++) {
+                sequences.set(i, i);
+            }
+            this.types = new EventType[size];
+            this.times = new long[size];
+            this.ticks = new long[size];
+            this.worlds = new String[size];
+            this.xs = new int[size];
+            this.ys = new int[size];
+            this.zs = new int[size];
+            this.placers = new UUID[size];
+        }
+        
+        private boolean offer(EventType type, long time, long tick, String world, int x, int y, int z, UUID placer) {
+            long position = tail.get();
+            while (true) {
+                int index = (int) (position & mask);
+                long difference = sequences.get(index) - position;
+                if (difference == 0) {
+                    if (tail.compareAndSet(position, position + 1)) {
+                        types[index] = type;
+                        times[index] = time;
+                        ticks[index] = tick;
+                        worlds[index] = world;
+                        xs[index] = x;
+                        ys[index] = y;
+                        zs[index] = z;
+                        placers[index] = placer;
+                        // Publish the slot to the consumer
+                        sequences.lazySet(index, position + 1);
+                        return true;
+                    }
+                    position = tail.get();
+                } else if (difference < 0) {
+                    return false; // Full
+                } else {
+                    position = tail.get();
+                }
+            }
+        }
+        
+        /**
+         * Formats the oldest published event as a CSV row and frees its slot
+         * @return false if no event is ready
+         */
+        private boolean poll(StringBuilder row) {
+            int index = (int) (head & mask);
+            if (sequences.get(index) != head + 1) {
+                return false;
+            }
+            
+            row.append(times[index]).append(',')
+                .append(ticks[index]).append(',')
+                .append(types[index].column).append(',')
+                .append(worlds[index]).append(',')
+                .append(xs[index]).append(',')
+                .append(ys[index]).append(',')
+                .append(zs[index]).append(',');
+            if (placers[index] != null) {
+                row.append(placers[index]);
+            }
+            row.append('\n');
+            
+            worlds[index] = null;
+            placers[index] = null;
+            // Hand the slot back to producers for the next lap
+            sequences.lazySet(index, head + mask + 1);
+            head++;
+            return true;
+        }
+    }
+}
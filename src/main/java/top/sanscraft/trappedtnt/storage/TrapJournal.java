@@ -0,0 +1,348 @@
+package top.sanscraft.trappedtnt.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only binary journal of armed traps.
+ * The main thread only enqueues changes; a background writer appends them as fixed-size,
+ * checksummed records and rewrites the file with just the live traps once most records
+ * are stale. On startup the journal is replayed up to the first torn or corrupt record.
+ */
+public class TrapJournal {
+    
+    private static final int MAGIC = 0x54544A31; // "TTJ1"
+    private static final int HEADER_SIZE = 4;
+    private static final byte OP_ADD = 1;
+    private static final byte OP_REMOVE = 2;
+    /** op + id + world + x/y/z + placer + armed-at + fuse + crc */
+    static final int RECORD_SIZE = 1 + 16 + 16 + 12 + 16 + 8 + 4 + 4;
+    private static final int PAYLOAD_SIZE = RECORD_SIZE - 4;
+    
+    /** Journals with fewer records than this are never compacted */
+    private static final int COMPACT_MIN_RECORDS = 4096;
+    /** Compact once the journal holds this many records per live trap */
+    private static final int COMPACT_RATIO = 4;
+    private static final long FORCE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    
+    private static final Op STOP = new Op((byte) 0, null, null);
+    
+    private final File file;
+    private final Logger logger;
+    private final BlockingQueue<Op> queue = new LinkedBlockingQueue<>();
+    
+    // Owned by the writer thread once it has started
+    private final Map<UUID, TrapRecord> live = new LinkedHashMap<>();
+    private FileChannel channel;
+    private long recordCount;
+    private boolean dirty;
+    private long lastForce;
+    
+    private Thread writer;
+    private volatile boolean running;
+    
+    public TrapJournal(File file, Logger logger) {
+        this.file = file;
+        this.logger = logger;
+    }
+    
+    /**
+     * Replays the journal, compacts it and starts the background writer
+     * @return the traps that were armed when the journal was last written
+     */
+    public List<TrapRecord> open() throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        
+        replay();
+        compact();
+        
+        running = true;
+        writer = new Thread(this::runWriter, "TrappedTnt-Journal");
+        writer.setDaemon(true);
+        writer.start();
+        return new ArrayList<>(live.values());
+    }
+    
+    /**
+     * Checks if the journal is open and accepting changes
+     */
+    public boolean isOpen() {
+        return running;
+    }
+    
+    /**
+     * Queues a newly armed trap for writing
+     */
+    public void recordArmed(TrapRecord record) {
+        if (running) {
+            queue.add(new Op(OP_ADD, record.getId(), record));
+        }
+    }
+    
+    /**
+     * Queues the removal of a trap for writing
+     */
+    public void recordRemoved(UUID id) {
+        if (running) {
+            queue.add(new Op(OP_REMOVE, id, null));
+        }
+    }
+    
+    /**
+     * Writes every queued change, compacts the journal and stops the writer
+     */
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        queue.add(STOP);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            logger.warning("Trap journal writer did not finish in time; recent changes may be lost");
+        }
+    }
+    
+    private void runWriter() {
+        List<Op> batch = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * 256);
+        CRC32 crc = new CRC32();
+        boolean stopping = false;
+        
+        try {
+            while (!stopping) {
+                Op first = queue.poll(1, TimeUnit.SECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch);
+                }
+                
+                for (Op op : batch) {
+                    if (op == STOP) {
+                        stopping = true;
+                        continue;
+                    }
+                    if (op.type == OP_ADD) {
+                        live.put(op.id, op.record);
+                    } else if (live.remove(op.id) == null) {
+                        // Removing a trap the journal never saw needs no record
+                        continue;
+                    }
+                    
+                    if (buffer.remaining() < RECORD_SIZE) {
+                        flush(buffer);
+                    }
+                    encode(buffer, crc, op.type, op.id, op.record);
+                    recordCount++;
+                }
+                batch.clear();
+                flush(buffer);
+                
+                if (recordCount > COMPACT_MIN_RECORDS && recordCount > (long) live.size() * COMPACT_RATIO) {
+                    compact();
+                } else {
+                    forceIfDue(stopping);
+                }
+            }
+            compact();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            running = false;
+            logger.log(Level.SEVERE, "Trap journal writer failed, armed traps will no longer be persisted", e);
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // Nothing left to write
+            }
+        }
+    }
+    
+    private void flush(ByteBuffer buffer) throws IOException {
+        if (buffer.position() == 0) {
+            return;
+        }
+        writeFully(channel, buffer);
+        dirty = true;
+    }
+    
+    private void forceIfDue(boolean always) throws IOException {
+        long now = System.nanoTime();
+        if (dirty && (always || now - lastForce >= FORCE_INTERVAL_NANOS)) {
+            channel.force(false);
+            dirty = false;
+            lastForce = now;
+        }
+    }
+    
+    /**
+     * Rewrites the journal with one record per live trap and swaps it in atomically
+     */
+    private void compact() throws IOException {
+        Path target = file.toPath();
+        Path temp = new File(file.getPath() + ".tmp").toPath();
+        
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * 256);
+            CRC32 crc = new CRC32();
+            buffer.putInt(MAGIC);
+            for (TrapRecord record : live.values()) {
+                if (buffer.remaining() < RECORD_SIZE) {
+                    writeFully(out, buffer);
+                }
+                encode(buffer, crc, OP_ADD, record.getId(), record);
+            }
+            writeFully(out, buffer);
+            out.force(true);
+        }
+        
+        if (channel != null) {
+            channel.close();
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        recordCount = live.size();
+        dirty = false;
+        lastForce = System.nanoTime();
+    }
+    
+    private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+    
+    private void replay() throws IOException {
+        live.clear();
+        if (!file.exists()) {
+            return;
+        }
+        
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        CRC32 crc = new CRC32();
+        try (FileChannel in = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            if (readFully(in, header) < HEADER_SIZE || header.getInt(0) != MAGIC) {
+                logger.warning("Ignoring unrecognised trap journal " + file.getName());
+                return;
+            }
+            
+            long count = 0;
+            while (true) {
+                record.clear();
+                int read = readFully(in, record);
+                if (read < RECORD_SIZE) {
+                    if (read > 0) {
+                        logger.warning("Trap journal ends with a partial record, dropping it");
+                    }
+                    break;
+                }
+                
+                crc.reset();
+                crc.update(record.array(), 0, PAYLOAD_SIZE);
+                if ((int) crc.getValue() != record.getInt(PAYLOAD_SIZE)) {
+                    logger.warning("Trap journal record " + count + " is corrupt, ignoring the rest of the journal");
+                    break;
+                }
+                
+                record.flip();
+                byte type = record.get();
+                UUID id = new UUID(record.getLong(), record.getLong());
+                if (type == OP_ADD) {
+                    live.put(id, decode(record, id));
+                } else {
+                    live.remove(id);
+                }
+                count++;
+            }
+        }
+    }
+    
+    private static int readFully(FileChannel in, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (in.read(buffer) < 0) {
+                break;
+            }
+        }
+        return buffer.position();
+    }
+    
+    private static void encode(ByteBuffer buffer, CRC32 crc, byte type, UUID id, TrapRecord record) {
+        int start = buffer.position();
+        buffer.put(type);
+        buffer.putLong(id.getMostSignificantBits());
+        buffer.putLong(id.getLeastSignificantBits());
+        if (record != null) {
+            buffer.putLong(record.getWorldId().getMostSignificantBits());
+            buffer.putLong(record.getWorldId().getLeastSignificantBits());
+            buffer.putInt(record.getX());
+            buffer.putInt(record.getY());
+            buffer.putInt(record.getZ());
+            UUID placer = record.getPlacer();
+            buffer.putLong(placer != null ? placer.getMostSignificantBits() : 0L);
+            buffer.putLong(placer != null ? placer.getLeastSignificantBits() : 0L);
+            buffer.putLong(record.getArmedAtMillis());
+            buffer.putInt(record.getFuseTicks());
+        } else {
+            for (int i = 0; i < PAYLOAD_SIZE - 17; i++) {
+                buffer.put((byte) 0);
+            }
+        }
+        
+        crc.reset();
+        crc.update(buffer.array(), start, PAYLOAD_SIZE);
+        buffer.putInt((int) crc.getValue());
+    }
+    
+    private static TrapRecord decode(ByteBuffer buffer, UUID id) {
+        UUID worldId = new UUID(buffer.getLong(), buffer.getLong());
+        int x = buffer.getInt();
+        int y = buffer.getInt();
+        int z = buffer.getInt();
+        long placerMost = buffer.getLong();
+        long placerLeast = buffer.getLong();
+        UUID placer = placerMost == 0L && placerLeast == 0L ? null : new UUID(placerMost, placerLeast);
+        long armedAt = buffer.getLong();
+        int fuseTicks = buffer.getInt();
+        return new TrapRecord(id, worldId, x, y, z, placer, armedAt, fuseTicks);
+    }
+    
+    private static final class Op {
+        private final byte type;
+        private final UUID id;
+        private final TrapRecord record;
+        
+        private Op(byte type, UUID id, TrapRecord record) {
+            this.type = type;
+            this.id = id;
+            this.record = record;
+        }
+    }
+}
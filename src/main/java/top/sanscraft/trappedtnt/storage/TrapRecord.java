@@ -0,0 +1,92 @@
+package top.sanscraft.trappedtnt.storage;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * Persisted description of an armed trap
+ */
+public final class TrapRecord {
+    
+    private final UUID id;
+    private final UUID worldId;
+    private final int x;
+    private final int y;
+    private final int z;
+    private final UUID placer;
+    private final long armedAtMillis;
+    private final int fuseTicks;
+    
+    /**
+     * Gets the id a virtual trap is journaled under. Virtual traps have no entity, so the id is
+     * a name-based UUID of their block, which never collides with random entity UUIDs.
+     */
+    public static UUID virtualId(UUID worldId, int x, int y, int z) {
+        ByteBuffer buffer = ByteBuffer.allocate(28);
+        buffer.putLong(worldId.getMostSignificantBits()).putLong(worldId.getLeastSignificantBits());
+        buffer.putInt(x).putInt(y).putInt(z);
+        return UUID.nameUUIDFromBytes(buffer.array());
+    }
+    
+    /**
+     * @param id The primed TNT entity's UUID, or {@link #virtualId} for a virtual trap
+     * @param placer The placing player, or null if unknown
+     */
+    public TrapRecord(UUID id, UUID worldId, int x, int y, int z, UUID placer, long armedAtMillis, int fuseTicks) {
+        this.id = id;
+        this.worldId = worldId;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.placer = placer;
+        this.armedAtMillis = armedAtMillis;
+        this.fuseTicks = fuseTicks;
+    }
+    
+    public UUID getId() {
+        return id;
+    }
+    
+    /**
+     * Checks if this is a virtual trap, kept as a record instead of a primed TNT entity
+     */
+    public boolean isVirtual() {
+        return id.version() == 3;
+    }
+    
+    public UUID getWorldId() {
+        return worldId;
+    }
+    
+    public int getX() {
+        return x;
+    }
+    
+    public int getY() {
+        return y;
+    }
+    
+    public int getZ() {
+        return z;
+    }
+    
+    public int getChunkX() {
+        return x >> 4;
+    }
+    
+    public int getChunkZ() {
+        return z >> 4;
+    }
+    
+    public UUID getPlacer() {
+        return placer;
+    }
+    
+    public long getArmedAtMillis() {
+        return armedAtMillis;
+    }
+    
+    public int getFuseTicks() {
+        return fuseTicks;
+    }
+}
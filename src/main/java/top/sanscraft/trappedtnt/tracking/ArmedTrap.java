@@ -0,0 +1,84 @@
+package top.sanscraft.trappedtnt.tracking;
+
+import org.bukkit.Location;
+import org.bukkit.entity.TNTPrimed;
+
+import java.util.UUID;
+
+/**
+ * An armed trapped TNT: the primed entity plus the block it was placed on.
+ * The trap is filed in the spatial index under the block column its entity was last seen in,
+ * starting with the placed block; {@link TrapRegistry} moves it as the entity drifts.
+ */
+public class ArmedTrap {
+    
+    private final TNTPrimed entity;
+    private final UUID placer;
+    private final Location blockLocation;
+    private final UUID worldId;
+    // Guarded by this
+    private int filedX;
+    private int filedZ;
+    private long cellKey;
+    
+    public ArmedTrap(TNTPrimed entity, UUID placer, Location blockLocation) {
+        this.entity = entity;
+        this.placer = placer;
+        this.blockLocation = blockLocation;
+        this.worldId = blockLocation.getWorld().getUID();
+        fileAt(blockLocation.getBlockX(), blockLocation.getBlockZ());
+    }
+    
+    public TNTPrimed getEntity() {
+        return entity;
+    }
+    
+    public UUID getPlacer() {
+        return placer;
+    }
+    
+    public Location getBlockLocation() {
+        return blockLocation;
+    }
+    
+    public UUID getWorldId() {
+        return worldId;
+    }
+    
+    /**
+     * Gets the packed index cell this trap was filed under
+     */
+    public synchronized long getCellKey() {
+        return cellKey;
+    }
+    
+    /**
+     * Gets the block x the trap is filed under in the spatial index
+     */
+    public synchronized int getFiledX() {
+        return filedX;
+    }
+    
+    /**
+     * Gets the block z the trap is filed under in the spatial index
+     */
+    public synchronized int getFiledZ() {
+        return filedZ;
+    }
+    
+    /**
+     * Files the trap under another block column; only called by the registry
+     */
+    synchronized void fileAt(int blockX, int blockZ) {
+        this.filedX = blockX;
+        this.filedZ = blockZ;
+        this.cellKey = TrapIndex.cellKey(blockX, blockZ);
+    }
+    
+    /**
+     * Checks if the primed entity can still be triggered
+     */
+    public boolean isLive() {
+        return !entity.isDead() && entity.isValid();
+    }
+}
@@ -0,0 +1,101 @@
+package top.sanscraft.trappedtnt.tracking;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.TNTPrimed;
+
+import java.util.UUID;
+
+/**
+ * Trapped TNT detonations collected into one combined explosion.
+ * The first detonation anchors the cluster; later ones within the radius of the anchor
+ * are merged in. The combined blast is centred on the members' average position and its
+ * power grows with the cube root of the summed cubes of their powers, so the blast volume
+ * matches that of all members together.
+ */
+public class DetonationCluster {
+    
+    private final TNTPrimed source;
+    private final UUID placer;
+    private final World world;
+    private final double anchorX;
+    private final double anchorY;
+    private final double anchorZ;
+    private double sumX;
+    private double sumY;
+    private double sumZ;
+    private double powerCubed;
+    private int size;
+    
+    /**
+     * @param source The anchoring TNT, reported as the source of the combined explosion
+     * @param center Explosion centre of the anchoring TNT
+     * @param power Power of the anchoring TNT
+     */
+    public DetonationCluster(TNTPrimed source, UUID placer, Location center, float power) {
+        this.source = source;
+        this.placer = placer;
+        this.world = center.getWorld();
+        this.anchorX = center.getX();
+        this.anchorY = center.getY();
+        this.anchorZ = center.getZ();
+        add(center, power);
+    }
+    
+    /**
+     * Checks if a detonation at the given centre can be merged into this cluster
+     */
+    public boolean isWithin(Location center, double radius) {
+        if (center.getWorld() != world) {
+            return false;
+        }
+        double dx = center.getX() - anchorX;
+        double dy = center.getY() - anchorY;
+        double dz = center.getZ() - anchorZ;
+        return dx * dx + dy * dy + dz * dz <= radius * radius;
+    }
+    
+    /**
+     * Merges a detonation into this cluster
+     */
+    public void add(Location center, float power) {
+        sumX += center.getX();
+        sumY += center.getY();
+        sumZ += center.getZ();
+        powerCubed += (double) power * power * power;
+        size++;
+    }
+    
+    public TNTPrimed getSource() {
+        return source;
+    }
+    
+    /**
+     * Gets the player who placed the anchoring trap, or null if unknown
+     */
+    public UUID getPlacer() {
+        return placer;
+    }
+    
+    /**
+     * Gets the centre of the combined explosion
+     */
+    public Location getCenter() {
+        return new Location(world, sumX / size, sumY / size, sumZ / size);
+    }
+    
+    /**
+     * Gets the power of the combined explosion
+     * @param maxPower Upper limit for the power
+     */
+    public float getPower(float maxPower) {
+        return (float) Math.min(Math.cbrt(powerCubed), maxPower);
+    }
+    
+    /**
+     * Gets the number of detonations in this cluster
+     */
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,123 @@
+package top.sanscraft.trappedtnt.tracking;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
+import top.sanscraft.trappedtnt.listeners.TrappedTntListener;
+import top.sanscraft.trappedtnt.scheduler.PlatformScheduler;
+import top.sanscraft.trappedtnt.storage.TrapRecord;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Repeating task that lets configured non-player entity types set off armed traps.
+ * Instead of listening to every entity's movement, each tick a bounded share of the armed
+ * traps runs one box query for matching entities around it, so the cost follows the trap
+ * budget rather than the number of mobs, minecarts and items on the server.
+ * Not usable on region-threaded servers, where no one thread may touch every trap's region.
+ */
+public class EntityContactTask implements Runnable {
+    
+    private final PlatformScheduler scheduler;
+    private final TrappedTntListener listener;
+    private final Location center = new Location(null, 0, 0, 0);
+    private final Location scratch = new Location(null, 0, 0, 0);
+    // The traps of the current round; refilled once every trap has been checked
+    private final List<ArmedTrap> armedTargets = new ArrayList<>();
+    private final List<TrapRecord> virtualTargets = new ArrayList<>();
+    private PlatformScheduler.Task task;
+    private Predicate<Entity> contactFilter;
+    private int trapsPerTick;
+    private int cursor;
+    
+    public EntityContactTask(PlatformScheduler scheduler, TrappedTntListener listener) {
+        this.scheduler = scheduler;
+        this.listener = listener;
+    }
+    
+    /**
+     * Starts checking every tick, replacing any running task
+     * @param types Entity types that trigger traps
+     * @param trapsPerTick traps checked per tick
+     */
+    public void start(Set<EntityType> types, int trapsPerTick) {
+        stop();
+        this.contactFilter = entity -> types.contains(entity.getType());
+        this.trapsPerTick = Math.max(1, trapsPerTick);
+        task = scheduler.runTimer(this, 1L, 1L);
+    }
+    
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        armedTargets.clear();
+        virtualTargets.clear();
+        cursor = 0;
+    }
+    
+    /**
+     * Checks if other entities can currently trigger traps
+     */
+    public boolean isRunning() {
+        return task != null;
+    }
+    
+    @Override
+    public void run() {
+        if (!listener.isContactDetectionEnabled() || listener.getActiveTrapCount() == 0) {
+            return;
+        }
+        
+        // Start a new round at most once per tick, so a small minefield is not checked twice
+        boolean refilled = false;
+        int budget = trapsPerTick;
+        while (budget > 0) {
+            if (cursor >= armedTargets.size() + virtualTargets.size()) {
+                if (refilled) {
+                    break;
+                }
+                listener.collectArmedTraps(armedTargets, virtualTargets);
+                cursor = 0;
+                refilled = true;
+                continue;
+            }
+            check(cursor++);
+            budget--;
+        }
+    }
+    
+    private void check(int target) {
+        if (target < armedTargets.size()) {
+            ArmedTrap trap = armedTargets.get(target);
+            if (!trap.isLive()) {
+                return;
+            }
+            trap.getEntity().getLocation(center);
+        } else {
+            TrapRecord record = virtualTargets.get(target - armedTargets.size());
+            World world = Bukkit.getWorld(record.getWorldId());
+            if (world == null || !world.isChunkLoaded(record.getX() >> 4, record.getZ() >> 4)) {
+                return;
+            }
+            // Where the TNT would be primed
+            center.setWorld(world);
+            center.setX(record.getX() + 0.5);
+            center.setY(record.getY());
+            center.setZ(record.getZ() + 0.5);
+        }
+        
+        double reach = TrappedTntListener.TRIGGER_RADIUS;
+        for (Entity entity : center.getWorld().getNearbyEntities(center, reach, reach, reach, contactFilter)) {
+            if (listener.checkProximity(entity, entity.getLocation(scratch))) {
+                return;
+            }
+        }
+    }
+}
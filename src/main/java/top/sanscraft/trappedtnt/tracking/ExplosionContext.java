@@ -0,0 +1,83 @@
+package top.sanscraft.trappedtnt.tracking;
+
+import org.bukkit.Location;
+import top.sanscraft.trappedtnt.config.TrappedTntSettings;
+import top.sanscraft.trappedtnt.damage.ExposureCalculator;
+
+import java.util.UUID;
+
+/**
+ * Explosion-level state of one trapped TNT blast, captured once and shared by every victim
+ */
+public class ExplosionContext {
+    
+    private final Location center;
+    private final float power;
+    private final double damageMultiplier;
+    private final double damageThreshold;
+    private final boolean bypassShields;
+    private final boolean debug;
+    private final UUID placer;
+    private ExposureCalculator exposure;
+    
+    public ExplosionContext(Location center, UUID placer, TrappedTntSettings settings) {
+        this(center, placer, settings.getExplosionPower(), settings);
+    }
+    
+    /**
+     * @param power Power of this blast, e.g. of a merged cluster explosion
+     */
+    public ExplosionContext(Location center, UUID placer, float power, TrappedTntSettings settings) {
+        this.center = center;
+        this.placer = placer;
+        this.power = power;
+        this.damageMultiplier = settings.getShieldBlockingDamageMultiplier();
+        this.damageThreshold = settings.getShieldBlockingDamageThreshold();
+        this.bypassShields = settings.isBypassShields();
+        this.debug = settings.isDebug();
+    }
+    
+    /**
+     * Gets the explosion centre, where vanilla places it for the detonating TNT
+     */
+    public Location getCenter() {
+        return center;
+    }
+    
+    public float getPower() {
+        return power;
+    }
+    
+    public double getDamageMultiplier() {
+        return damageMultiplier;
+    }
+    
+    public double getDamageThreshold() {
+        return damageThreshold;
+    }
+    
+    public boolean isBypassShields() {
+        return bypassShields;
+    }
+    
+    public boolean isDebug() {
+        return debug;
+    }
+    
+    /**
+     * Gets the exposure calculator for this blast, shared by all of its victims
+     */
+    public ExposureCalculator getExposure() {
+        if (exposure == null) {
+            exposure = new ExposureCalculator(center.getWorld(), center.getX(), center.getY(), center.getZ());
+        }
+        return exposure;
+    }
+    
+    /**
+     * Gets the player who placed the trap, or null if unknown
+     */
+    public UUID getPlacer() {
+        return placer;
+    }
+}
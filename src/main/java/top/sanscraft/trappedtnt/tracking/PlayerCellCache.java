@@ -0,0 +1,157 @@
+package top.sanscraft.trappedtnt.tracking;
+
+import org.bukkit.entity.Player;
+import top.sanscraft.trappedtnt.utils.ConcurrentLongObjectMap;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Remembers the trap cell each online player was last checked in and whether any armed trap
+ * was filed around it, so move events inside a trap-free cell skip the proximity scan.
+ * Each player gets a slot for their session holding two longs: the packed cell, and the
+ * epoch of the area the cell lies in with the trap-near flag. Arming or removing a trap bumps
+ * the epochs of the areas around it, which invalidates the state of every player there.
+ * Thread-safe. A slot is only written from its player's own events, and slots live in pages
+ * that are never copied, so growing the cache cannot lose a write.
+ */
+public class PlayerCellCache {
+    
+    /** Epoch areas are 1 << AREA_SHIFT blocks square */
+    private static final int AREA_SHIFT = 6;
+    private static final int AREA_CELL_SHIFT = AREA_SHIFT - TrapIndex.CELL_SHIFT;
+    private static final int EPOCH_SLOTS = 4096;
+    /** Slots per page are 1 << PAGE_SHIFT */
+    private static final int PAGE_SHIFT = 6;
+    private static final int PAGE_MASK = (1 << PAGE_SHIFT) - 1;
+    // Beyond any cell a block coordinate maps to, so it never matches
+    private static final long NO_CELL = Long.MAX_VALUE;
+    
+    private final NearbyTraps nearbyTraps;
+    private final ConcurrentLongObjectMap<Integer> slots;
+    private final AtomicIntegerArray epochs = new AtomicIntegerArray(EPOCH_SLOTS);
+    // Each page holds the cell then the epoch and flag of every slot in it
+    private volatile long[][] pages = new long[0][];
+    // Guarded by this
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+    private int highWater;
+    
+    /**
+     * Answers whether any armed trap is filed under a cell or the cells around it
+     */
+    @FunctionalInterface
+    public interface NearbyTraps {
+        boolean hasTrapsAround(UUID worldId, int cellX, int cellZ);
+    }
+    
+    /**
+     * @param stripeCount Number of lock stripes for the slot lookup
+     */
+    public PlayerCellCache(int stripeCount, NearbyTraps nearbyTraps) {
+        this.nearbyTraps = nearbyTraps;
+        this.slots = new ConcurrentLongObjectMap<>(stripeCount);
+    }
+    
+    /**
+     * Checks if no armed trap is filed around the cell of a player's block position.
+     * Only queries the traps when the player entered another cell or traps around it changed.
+     */
+    public boolean isClear(Player player, int blockX, int blockZ) {
+        int cellX = blockX >> TrapIndex.CELL_SHIFT;
+        int cellZ = blockZ >> TrapIndex.CELL_SHIFT;
+        // Read the epoch before querying, so a trap armed during the query invalidates the result
+        long epoch = epochs.get(epochSlot(cellX >> AREA_CELL_SHIFT, cellZ >> AREA_CELL_SHIFT)) & 0xFFFFFFFFL;
+        long cell = (long) cellX << 32 | (cellZ & 0xFFFFFFFFL);
+        
+        int slot = slotOf(player);
+        long[] page = pages[slot >> PAGE_SHIFT];
+        int index = (slot & PAGE_MASK) << 1;
+        long state = page[index + 1];
+        if (page[index] == cell && state >>> 1 == epoch) {
+            return (state & 1L) == 0L;
+        }
+        
+        boolean near = nearbyTraps.hasTrapsAround(player.getWorld().getUID(), cellX, cellZ);
+        page[index] = cell;
+        page[index + 1] = epoch << 1 | (near ? 1L : 0L);
+        return !near;
+    }
+    
+    /**
+     * Invalidates the state of every player whose cell is next to a block that gained or lost a trap
+     */
+    public void invalidateAround(int blockX, int blockZ) {
+        int cellX = blockX >> TrapIndex.CELL_SHIFT;
+        int cellZ = blockZ >> TrapIndex.CELL_SHIFT;
+        int minAreaX = (cellX - 1) >> AREA_CELL_SHIFT;
+        int maxAreaX = (cellX + 1) >> AREA_CELL_SHIFT;
+        int minAreaZ = (cellZ - 1) >> AREA_CELL_SHIFT;
+        int maxAreaZ = (cellZ + 1) >> AREA_CELL_SHIFT;
+        for (int areaX = minAreaX; areaX <= maxAreaX; areaX++) {
+            for (int areaZ = minAreaZ; areaZ <= maxAreaZ; areaZ++) {
+                epochs.incrementAndGet(epochSlot(areaX, areaZ));
+            }
+        }
+    }
+    
+    /**
+     * Forgets a player's state, e.g. after they changed worlds
+     */
+    public void invalidate(Player player) {
+        Integer slot = slots.get(player.getEntityId());
+        if (slot != null) {
+            pages[slot >> PAGE_SHIFT][(slot & PAGE_MASK) << 1] = NO_CELL;
+        }
+    }
+    
+    /**
+     * Frees a player's slot at the end of their session
+     */
+    public void release(Player player) {
+        Integer slot = slots.get(player.getEntityId());
+        if (slot == null || !slots.remove(player.getEntityId(), slot)) {
+            return;
+        }
+        synchronized (this) {
+            if (freeCount == freeSlots.length) {
+                freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+            }
+            freeSlots[freeCount++] = slot;
+        }
+    }
+    
+    /**
+     * Gets a player's slot, assigning one on their first move of the session.
+     * The entity id is stable while the player is online, including across respawns.
+     */
+    private int slotOf(Player player) {
+        Integer slot = slots.get(player.getEntityId());
+        if (slot != null) {
+            return slot;
+        }
+        
+        int assigned;
+        synchronized (this) {
+            if (freeCount > 0) {
+                assigned = freeSlots[--freeCount];
+            } else {
+                if ((highWater & PAGE_MASK) == 0) {
+                    long[][] grown = Arrays.copyOf(pages, pages.length + 1);
+                    grown[pages.length] = new long[(PAGE_MASK + 1) << 1];
+                    pages = grown;
+                }
+                assigned = highWater++;
+            }
+            pages[assigned >> PAGE_SHIFT][(assigned & PAGE_MASK) << 1] = NO_CELL;
+        }
+        slots.put(player.getEntityId(), assigned);
+        return assigned;
+    }
+    
+    private static int epochSlot(int areaX, int areaZ) {
+        int h = (areaX * 0x9E3779B9) ^ (areaZ * 0x85EBCA6B);
+        return (h ^ (h >>> 16)) & (EPOCH_SLOTS - 1);
+    }
+}
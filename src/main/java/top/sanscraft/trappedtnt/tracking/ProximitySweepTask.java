@@ -0,0 +1,81 @@
+package top.sanscraft.trappedtnt.tracking;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+import top.sanscraft.trappedtnt.listeners.TrappedTntListener;
+import top.sanscraft.trappedtnt.scheduler.PlatformScheduler;
+
+import java.util.Collection;
+
+/**
+ * Repeating task that checks all online players against the armed traps in one pass.
+ * Used instead of per-PlayerMoveEvent checks when detection-mode is tick-sweep,
+ * giving a fixed per-sweep cost that can be capped with a per-sweep player budget.
+ * Not usable on region-threaded servers, where no one thread may touch every player.
+ */
+public class ProximitySweepTask implements Runnable {
+    
+    private final PlatformScheduler scheduler;
+    private final TrappedTntListener listener;
+    private final Location scratch = new Location(null, 0, 0, 0);
+    private PlatformScheduler.Task task;
+    private int maxPlayersPerSweep;
+    private int cursor;
+    
+    public ProximitySweepTask(PlatformScheduler scheduler, TrappedTntListener listener) {
+        this.scheduler = scheduler;
+        this.listener = listener;
+    }
+    
+    /**
+     * Starts sweeping every interval ticks, replacing any running sweep
+     * @param maxPlayersPerSweep players checked per sweep, 0 for all
+     */
+    public void start(long intervalTicks, int maxPlayersPerSweep) {
+        stop();
+        this.maxPlayersPerSweep = maxPlayersPerSweep;
+        this.cursor = 0;
+        long interval = Math.max(1L, intervalTicks);
+        task = scheduler.runTimer(this, interval, interval);
+    }
+    
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+    
+    /**
+     * Checks if proximity detection is currently driven by this sweep
+     */
+    public boolean isRunning() {
+        return task != null;
+    }
+    
+    @Override
+    public void run() {
+        if (!listener.isContactDetectionEnabled() || listener.getActiveTrapCount() == 0) {
+            return;
+        }
+        
+        Collection<? extends Player> players = Bukkit.getOnlinePlayers();
+        int online = players.size();
+        if (online == 0) {
+            return;
+        }
+        
+        // With a budget, walk a rotating window so every player is checked within a few sweeps
+        int budget = maxPlayersPerSweep > 0 ? Math.min(maxPlayersPerSweep, online) : online;
+        int start = cursor % online;
+        int index = 0;
+        for (Player player : players) {
+            if (Math.floorMod(index - start, online) < budget) {
+                listener.checkProximity(player, player.getLocation(scratch));
+            }
+            index++;
+        }
+        cursor = start + budget;
+    }
+}
@@ -0,0 +1,92 @@
+package top.sanscraft.trappedtnt.tracking;
+
+import top.sanscraft.trappedtnt.utils.BlockKeys;
+import top.sanscraft.trappedtnt.utils.LongUuidMap;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * TNT blocks that belong to a trap, with the player who placed them: blocks waiting to be
+ * armed, and the blocks of virtual traps. Kept per world in maps keyed by packed block
+ * position, so block events can be checked against it without allocating.
+ * Thread-safe; every call takes the registry's lock.
+ */
+public class TrapBlocks {
+    
+    private final Map<UUID, LongUuidMap> worlds = new HashMap<>();
+    // Written under the lock, read without it so block events in trap-free servers skip the lock
+    private volatile int size;
+    
+    /**
+     * Records a trap block, replacing any entry at the same position
+     * @param placer The placing player, or null if unknown
+     */
+    public synchronized void put(UUID worldId, int x, int y, int z, UUID placer) {
+        if (worlds.computeIfAbsent(worldId, id -> new LongUuidMap()).put(BlockKeys.pack(x, y, z), placer)) {
+            size++;
+        }
+    }
+    
+    /**
+     * Checks if a block is a trap block
+     */
+    public boolean contains(UUID worldId, int x, int y, int z) {
+        if (size == 0) {
+            return false;
+        }
+        synchronized (this) {
+            LongUuidMap blocks = worlds.get(worldId);
+            return blocks != null && blocks.containsKey(BlockKeys.pack(x, y, z));
+        }
+    }
+    
+    /**
+     * Gets the player who placed a trap block, or null if unknown or not a trap block
+     */
+    public synchronized UUID getPlacer(UUID worldId, int x, int y, int z) {
+        LongUuidMap blocks = worlds.get(worldId);
+        return blocks != null ? blocks.get(BlockKeys.pack(x, y, z)) : null;
+    }
+    
+    /**
+     * Forgets a trap block
+     * @return true if the block was a trap block
+     */
+    public synchronized boolean remove(UUID worldId, int x, int y, int z) {
+        LongUuidMap blocks = worlds.get(worldId);
+        if (blocks == null || !blocks.remove(BlockKeys.pack(x, y, z))) {
+            return false;
+        }
+        size--;
+        if (blocks.isEmpty()) {
+            worlds.remove(worldId);
+        }
+        return true;
+    }
+    
+    /**
+     * Checks if a world has any trap blocks
+     */
+    public boolean hasAny(UUID worldId) {
+        if (size == 0) {
+            return false;
+        }
+        synchronized (this) {
+            return worlds.containsKey(worldId);
+        }
+    }
+    
+    /**
+     * Gets the number of trap blocks
+     */
+    public int size() {
+        return size;
+    }
+    
+    public synchronized void clear() {
+        worlds.clear();
+        size = 0;
+    }
+}
@@ -0,0 +1,97 @@
+package top.sanscraft.trappedtnt.tracking;
+
+import org.bukkit.Location;
+import top.sanscraft.trappedtnt.utils.LongObjectMap;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Numbers of tracked traps per chunk and per placer, for placement limits.
+ * Counters are mutable int boxes, so updates and lookups are a map probe without boxing.
+ * Not thread-safe; {@link TrapRegistry} guards each instance with its stripe's lock.
+ */
+public class TrapCounts {
+    
+    private final Map<UUID, LongObjectMap<int[]>> chunks = new HashMap<>();
+    private final Map<UUID, int[]> placers = new HashMap<>();
+    
+    /**
+     * Packs chunk coordinates into a single long key
+     */
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+    
+    void add(ArmedTrap trap) {
+        Location block = trap.getBlockLocation();
+        add(trap.getWorldId(), block.getBlockX(), block.getBlockZ(), trap.getPlacer());
+    }
+    
+    void add(UUID worldId, int blockX, int blockZ, UUID placer) {
+        LongObjectMap<int[]> world = chunks.computeIfAbsent(worldId, id -> new LongObjectMap<>());
+        long key = chunkKey(blockX >> 4, blockZ >> 4);
+        int[] count = world.get(key);
+        if (count == null) {
+            world.put(key, new int[] {1});
+        } else {
+            count[0]++;
+        }
+        
+        if (placer != null) {
+            placers.computeIfAbsent(placer, id -> new int[1])[0]++;
+        }
+    }
+    
+    void remove(ArmedTrap trap) {
+        Location block = trap.getBlockLocation();
+        remove(trap.getWorldId(), block.getBlockX(), block.getBlockZ(), trap.getPlacer());
+    }
+    
+    void remove(UUID worldId, int blockX, int blockZ, UUID placer) {
+        LongObjectMap<int[]> world = chunks.get(worldId);
+        if (world != null) {
+            long key = chunkKey(blockX >> 4, blockZ >> 4);
+            int[] count = world.get(key);
+            if (count != null && --count[0] == 0) {
+                world.remove(key);
+                if (world.isEmpty()) {
+                    chunks.remove(worldId);
+                }
+            }
+        }
+        
+        if (placer != null) {
+            int[] count = placers.get(placer);
+            if (count != null && --count[0] == 0) {
+                placers.remove(placer);
+            }
+        }
+    }
+    
+    /**
+     * Gets the number of tracked traps in a chunk
+     */
+    public int getChunkCount(UUID worldId, int chunkX, int chunkZ) {
+        LongObjectMap<int[]> world = chunks.get(worldId);
+        if (world == null) {
+            return 0;
+        }
+        int[] count = world.get(chunkKey(chunkX, chunkZ));
+        return count == null ? 0 : count[0];
+    }
+    
+    /**
+     * Gets the number of tracked traps placed by a player
+     */
+    public int getPlacerCount(UUID placer) {
+        int[] count = placers.get(placer);
+        return count == null ? 0 : count[0];
+    }
+    
+    void clear() {
+        chunks.clear();
+        placers.clear();
+    }
+}
@@ -0,0 +1,199 @@
+package top.sanscraft.trappedtnt.tracking;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import top.sanscraft.trappedtnt.utils.LongObjectMap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Per-world spatial index of armed traps.
+ * Traps are bucketed into square cells of {@link #CELL_SIZE} blocks keyed by packed long
+ * cell coordinates, so a proximity query only visits the cells around the query point.
+ * Not thread-safe; {@link TrapRegistry} guards each index with its stripe's lock.
+ */
+public class TrapIndex {
+    
+    /** Cell edge length is 1 << CELL_SHIFT blocks */
+    public static final int CELL_SHIFT = 3;
+    public static final int CELL_SIZE = 1 << CELL_SHIFT;
+    
+    /**
+     * Extra search distance so traps that moved since they were last filed (spawn jitter,
+     * knockback, water) are still found; traps that move further are filed again by the registry
+     */
+    static final double DRIFT_MARGIN = 2.0;
+    
+    private final Map<UUID, WorldCells> worlds = new HashMap<>();
+    private final Location scratch = new Location(null, 0, 0, 0);
+    private int size;
+    
+    /**
+     * Packs cell coordinates of a block column into a single long key
+     */
+    public static long cellKey(int blockX, int blockZ) {
+        return pack(blockX >> CELL_SHIFT, blockZ >> CELL_SHIFT);
+    }
+    
+    private static long pack(int cellX, int cellZ) {
+        return ((long) cellX << 32) | (cellZ & 0xFFFFFFFFL);
+    }
+    
+    /**
+     * Adds an armed trap to the index
+     */
+    public void add(ArmedTrap trap) {
+        WorldCells world = worlds.computeIfAbsent(trap.getWorldId(), id -> new WorldCells());
+        List<ArmedTrap> bucket = world.cells.get(trap.getCellKey());
+        if (bucket == null) {
+            bucket = new ArrayList<>(4);
+            world.cells.put(trap.getCellKey(), bucket);
+        }
+        bucket.add(trap);
+        world.size++;
+        size++;
+    }
+    
+    /**
+     * Removes an armed trap from the index
+     * @return true if the trap was indexed
+     */
+    public boolean remove(ArmedTrap trap) {
+        WorldCells world = worlds.get(trap.getWorldId());
+        if (world == null) {
+            return false;
+        }
+        
+        List<ArmedTrap> bucket = world.cells.get(trap.getCellKey());
+        if (bucket == null || !bucket.remove(trap)) {
+            return false;
+        }
+        
+        if (bucket.isEmpty()) {
+            world.cells.remove(trap.getCellKey());
+        }
+        if (--world.size == 0) {
+            worlds.remove(trap.getWorldId());
+        }
+        size--;
+        return true;
+    }
+    
+    /**
+     * Checks if a trap is indexed
+     */
+    public boolean contains(ArmedTrap trap) {
+        WorldCells world = worlds.get(trap.getWorldId());
+        if (world == null) {
+            return false;
+        }
+        List<ArmedTrap> bucket = world.cells.get(trap.getCellKey());
+        return bucket != null && bucket.contains(trap);
+    }
+    
+    /**
+     * Finds a live trap whose entity is within the radius of the given point
+     * @return the first trap found, or null if none is in range
+     */
+    public ArmedTrap findWithin(World world, double x, double y, double z, double radius) {
+        WorldCells worldCells = worlds.get(world.getUID());
+        if (worldCells == null) {
+            return null;
+        }
+        LongObjectMap<List<ArmedTrap>> cells = worldCells.cells;
+        
+        double reach = radius + DRIFT_MARGIN;
+        int minCellX = (int) Math.floor(x - reach) >> CELL_SHIFT;
+        int maxCellX = (int) Math.floor(x + reach) >> CELL_SHIFT;
+        int minCellZ = (int) Math.floor(z - reach) >> CELL_SHIFT;
+        int maxCellZ = (int) Math.floor(z + reach) >> CELL_SHIFT;
+        double radiusSquared = radius * radius;
+        
+        for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+            for (int cellZ = minCellZ; cellZ <= maxCellZ; cellZ++) {
+                List<ArmedTrap> bucket = cells.get(pack(cellX, cellZ));
+                if (bucket == null) {
+                    continue;
+                }
+                
+                for (int i = 0, n = bucket.size(); i < n; i++) {
+                    ArmedTrap trap = bucket.get(i);
+                    if (!trap.isLive()) {
+                        continue;
+                    }
+                    
+                    // Use the live entity position, reusing one Location to avoid allocation
+                    Location tntLoc = trap.getEntity().getLocation(scratch);
+                    double dx = tntLoc.getX() - x;
+                    double dy = tntLoc.getY() - y;
+                    double dz = tntLoc.getZ() - z;
+                    if (dx * dx + dy * dy + dz * dz <= radiusSquared) {
+                        return trap;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Checks if any trap is filed under a cell or the eight cells around it.
+     * Traps within reach of a point in the cell are always filed there, as the cell size is
+     * more than the trigger radius plus the drift margin.
+     */
+    public boolean hasTrapsAround(UUID worldId, int cellX, int cellZ) {
+        WorldCells worldCells = worlds.get(worldId);
+        if (worldCells == null) {
+            return false;
+        }
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dz = -1; dz <= 1; dz++) {
+                if (worldCells.cells.containsKey(pack(cellX + dx, cellZ + dz))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Adds every indexed trap to the list
+     */
+    public void collect(List<ArmedTrap> into) {
+        for (WorldCells world : worlds.values()) {
+            world.cells.forEachValue(into::addAll);
+        }
+    }
+    
+    /**
+     * Gets the number of indexed traps across all worlds
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Gets the number of indexed traps in each world that has any
+     */
+    public Map<UUID, Integer> getWorldCounts() {
+        Map<UUID, Integer> counts = new HashMap<>();
+        for (Map.Entry<UUID, WorldCells> entry : worlds.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().size);
+        }
+        return counts;
+    }
+    
+    public void clear() {
+        worlds.clear();
+        size = 0;
+    }
+    
+    private static final class WorldCells {
+        private final LongObjectMap<List<ArmedTrap>> cells = new LongObjectMap<>();
+        private int size;
+    }
+}
@@ -0,0 +1,73 @@
+package top.sanscraft.trappedtnt.tracking;
+
+import top.sanscraft.trappedtnt.storage.TrapRecord;
+import top.sanscraft.trappedtnt.utils.LongObjectMap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Dormant tier of traps whose entities are not loaded, grouped by world and chunk.
+ * Holds traps from unloaded chunks and persisted traps waiting for their chunk after a restart.
+ * Dormant traps are never seen by proximity checks; they are re-armed one chunk at a time
+ * as chunks load, so the work never scales with the total number of dormant traps.
+ * Thread-safe, since chunks on region-threaded servers load on different threads.
+ */
+public class TrapRecovery {
+    
+    private final Map<UUID, LongObjectMap<List<TrapRecord>>> pending = new HashMap<>();
+    private int size;
+    
+    public static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+    
+    /**
+     * Adds a trap to the dormant tier until its chunk's entities load
+     */
+    public synchronized void add(TrapRecord record) {
+        LongObjectMap<List<TrapRecord>> chunks = pending.computeIfAbsent(record.getWorldId(), id -> new LongObjectMap<>());
+        long key = chunkKey(record.getChunkX(), record.getChunkZ());
+        List<TrapRecord> records = chunks.get(key);
+        if (records == null) {
+            records = new ArrayList<>(2);
+            chunks.put(key, records);
+        }
+        records.add(record);
+        size++;
+    }
+    
+    /**
+     * Removes and returns the dormant traps of a chunk
+     * @return the traps, or null if none are dormant there
+     */
+    public synchronized List<TrapRecord> take(UUID worldId, int chunkX, int chunkZ) {
+        LongObjectMap<List<TrapRecord>> chunks = pending.get(worldId);
+        if (chunks == null) {
+            return null;
+        }
+        List<TrapRecord> records = chunks.remove(chunkKey(chunkX, chunkZ));
+        if (records != null) {
+            size -= records.size();
+            if (chunks.isEmpty()) {
+                pending.remove(worldId);
+            }
+        }
+        return records;
+    }
+    
+    /**
+     * Gets the number of dormant traps
+     */
+    public synchronized int size() {
+        return size;
+    }
+    
+    public synchronized void clear() {
+        pending.clear();
+        size = 0;
+    }
+}
@@ -0,0 +1,332 @@
+package top.sanscraft.trappedtnt.tracking;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import top.sanscraft.trappedtnt.utils.ConcurrentLongObjectMap;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory registry of trapped TNT entities keyed by entity id.
+ * Every tracked trap can be identified in O(1) without touching entity data.
+ * Traps that can still be set off by proximity are also kept in a spatial index, and
+ * every tracked trap is counted per chunk and per placer. Counts follow the placed block,
+ * while the index follows where the entity was last filed.
+ * The spatial state is split into stripes of 256-block squares, each
+ * behind its own lock, so region threads working on different parts of a world rarely
+ * contend; with a single stripe the locks are uncontended. Calls that move a
+ * trap in the index take the trap's own lock first, then a stripe's.
+ */
+public class TrapRegistry {
+    
+    /** Stripe squares are 1 << STRIPE_SHIFT blocks, the size of a default Folia region section */
+    private static final int STRIPE_SHIFT = 8;
+    
+    private final ConcurrentLongObjectMap<ArmedTrap> byEntityId;
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final AtomicInteger armedCount = new AtomicInteger();
+    
+    public TrapRegistry() {
+        this(1);
+    }
+    
+    /**
+     * @param stripeCount Number of independently locked stripes, rounded up to a power of two
+     */
+    public TrapRegistry(int stripeCount) {
+        int count = stripeCount <= 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1;
+        this.byEntityId = new ConcurrentLongObjectMap<>(count);
+        this.stripes = new Stripe[count];
+        this.stripeMask = count - 1;
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+    
+    /**
+     * Starts tracking a trap
+     * @param armed true if proximity should be able to trigger it
+     */
+    public void register(ArmedTrap trap, boolean armed) {
+        ArmedTrap previous = byEntityId.put(trap.getEntity().getEntityId(), trap);
+        if (previous != null) {
+            untrack(previous);
+        }
+        Stripe stripe = stripeOf(trap.getBlockLocation());
+        synchronized (stripe) {
+            stripe.counts.add(trap);
+        }
+        if (armed) {
+            synchronized (trap) {
+                Stripe filed = filedStripeOf(trap);
+                synchronized (filed) {
+                    filed.index.add(trap);
+                }
+            }
+            armedCount.incrementAndGet();
+        }
+    }
+    
+    /**
+     * Gets the trap for an entity id
+     * @return the trap, or null if the entity is not a tracked trap
+     */
+    public ArmedTrap get(int entityId) {
+        return byEntityId.get(entityId);
+    }
+    
+    /**
+     * Stops proximity triggering for a trap while keeping it identifiable until it explodes
+     * @return true if the trap was armed, false if it was already disarmed
+     */
+    public boolean disarm(ArmedTrap trap) {
+        if (!unindex(trap)) {
+            return false;
+        }
+        armedCount.decrementAndGet();
+        return true;
+    }
+    
+    /**
+     * Files an armed trap under the block column its entity is in now, so proximity
+     * queries keep finding it after it was pushed away from where it was placed
+     * @return false if the trap is no longer armed
+     */
+    public boolean refile(ArmedTrap trap, int blockX, int blockZ) {
+        synchronized (trap) {
+            Stripe from = filedStripeOf(trap);
+            if (TrapIndex.cellKey(blockX, blockZ) == trap.getCellKey()) {
+                synchronized (from) {
+                    return from.index.contains(trap);
+                }
+            }
+            
+            Stripe to = stripeOf(blockX, blockZ);
+            synchronized (from) {
+                if (!from.index.remove(trap)) {
+                    return false;
+                }
+                if (from == to) {
+                    trap.fileAt(blockX, blockZ);
+                    to.index.add(trap);
+                    return true;
+                }
+            }
+            trap.fileAt(blockX, blockZ);
+            synchronized (to) {
+                to.index.add(trap);
+            }
+            return true;
+        }
+    }
+    
+    /**
+     * Stops tracking the trap for an entity id
+     * @return the removed trap, or null if none was tracked
+     */
+    public ArmedTrap remove(int entityId) {
+        ArmedTrap trap = byEntityId.remove(entityId);
+        if (trap != null) {
+            untrack(trap);
+        }
+        return trap;
+    }
+    
+    private void untrack(ArmedTrap trap) {
+        if (unindex(trap)) {
+            armedCount.decrementAndGet();
+        }
+        Stripe stripe = stripeOf(trap.getBlockLocation());
+        synchronized (stripe) {
+            stripe.counts.remove(trap);
+        }
+    }
+    
+    private boolean unindex(ArmedTrap trap) {
+        synchronized (trap) {
+            Stripe filed = filedStripeOf(trap);
+            synchronized (filed) {
+                return filed.index.remove(trap);
+            }
+        }
+    }
+    
+    /**
+     * Finds an armed trap within the radius of the given point
+     */
+    public ArmedTrap findArmedWithin(World world, double x, double y, double z, double radius) {
+        if (stripes.length == 1) {
+            Stripe stripe = stripes[0];
+            synchronized (stripe) {
+                return stripe.index.findWithin(world, x, y, z, radius);
+            }
+        }
+        
+        // Search every stripe the query square overlaps, at most four
+        double reach = radius + TrapIndex.DRIFT_MARGIN;
+        int minX = (int) Math.floor(x - reach) >> STRIPE_SHIFT;
+        int maxX = (int) Math.floor(x + reach) >> STRIPE_SHIFT;
+        int minZ = (int) Math.floor(z - reach) >> STRIPE_SHIFT;
+        int maxZ = (int) Math.floor(z + reach) >> STRIPE_SHIFT;
+        int visited = -1;
+        for (int stripeX = minX; stripeX <= maxX; stripeX++) {
+            for (int stripeZ = minZ; stripeZ <= maxZ; stripeZ++) {
+                int slot = slotOf(stripeX, stripeZ);
+                if (slot == visited) {
+                    continue;
+                }
+                visited = slot;
+                Stripe stripe = stripes[slot];
+                synchronized (stripe) {
+                    ArmedTrap trap = stripe.index.findWithin(world, x, y, z, radius);
+                    if (trap != null) {
+                        return trap;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Checks if any armed trap is filed under a cell or the eight cells around it
+     */
+    public boolean hasArmedAround(UUID worldId, int cellX, int cellZ) {
+        if (stripes.length == 1) {
+            Stripe stripe = stripes[0];
+            synchronized (stripe) {
+                return stripe.index.hasTrapsAround(worldId, cellX, cellZ);
+            }
+        }
+        
+        // The three cells either way lie in at most two stripes per axis
+        int shift = STRIPE_SHIFT - TrapIndex.CELL_SHIFT;
+        int visited = -1;
+        for (int stripeX = (cellX - 1) >> shift; stripeX <= (cellX + 1) >> shift; stripeX++) {
+            for (int stripeZ = (cellZ - 1) >> shift; stripeZ <= (cellZ + 1) >> shift; stripeZ++) {
+                int slot = slotOf(stripeX, stripeZ);
+                if (slot == visited) {
+                    continue;
+                }
+                visited = slot;
+                Stripe stripe = stripes[slot];
+                synchronized (stripe) {
+                    if (stripe.index.hasTrapsAround(worldId, cellX, cellZ)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Adds every trap proximity can still trigger to the list
+     */
+    public void collectArmed(List<ArmedTrap> into) {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.index.collect(into);
+            }
+        }
+    }
+    
+    /**
+     * Gets the number of traps proximity can still trigger
+     */
+    public int getArmedCount() {
+        return armedCount.get();
+    }
+    
+    /**
+     * Gets the number of traps proximity can still trigger in each world that has any
+     */
+    public Map<UUID, Integer> getArmedCountsByWorld() {
+        if (stripes.length == 1) {
+            synchronized (stripes[0]) {
+                return stripes[0].index.getWorldCounts();
+            }
+        }
+        Map<UUID, Integer> counts = new HashMap<>();
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.index.getWorldCounts().forEach((world, count) -> counts.merge(world, count, Integer::sum));
+            }
+        }
+        return counts;
+    }
+    
+    /**
+     * Gets the number of tracked trap entities, armed or already triggered
+     */
+    public int size() {
+        return byEntityId.size();
+    }
+    
+    /**
+     * Gets the number of tracked traps in a chunk
+     */
+    public int getChunkCount(UUID worldId, int chunkX, int chunkZ) {
+        Stripe stripe = stripes[slotOf(chunkX >> (STRIPE_SHIFT - 4), chunkZ >> (STRIPE_SHIFT - 4))];
+        synchronized (stripe) {
+            return stripe.counts.getChunkCount(worldId, chunkX, chunkZ);
+        }
+    }
+    
+    /**
+     * Gets the number of tracked traps placed by a player
+     */
+    public int getPlacerCount(UUID placer) {
+        int count = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                count += stripe.counts.getPlacerCount(placer);
+            }
+        }
+        return count;
+    }
+    
+    public void clear() {
+        byEntityId.clear();
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.index.clear();
+                stripe.counts.clear();
+            }
+        }
+        armedCount.set(0);
+    }
+    
+    private Stripe stripeOf(Location block) {
+        return stripeOf(block.getBlockX(), block.getBlockZ());
+    }
+    
+    private Stripe stripeOf(int blockX, int blockZ) {
+        return stripes[slotOf(blockX >> STRIPE_SHIFT, blockZ >> STRIPE_SHIFT)];
+    }
+    
+    /**
+     * Gets the stripe whose index holds a trap; callers hold the trap's lock
+     */
+    private Stripe filedStripeOf(ArmedTrap trap) {
+        return stripeOf(trap.getFiledX(), trap.getFiledZ());
+    }
+    
+    private int slotOf(int stripeX, int stripeZ) {
+        int h = (stripeX * 0x9E3779B9) ^ (stripeZ * 0x85EBCA6B);
+        return (h ^ (h >>> 16)) & stripeMask;
+    }
+    
+    /**
+     * One lock's share of the spatial index and counts
+     */
+    private static final class Stripe {
+        private final TrapIndex index = new TrapIndex();
+        private final TrapCounts counts = new TrapCounts();
+    }
+}
@@ -0,0 +1,342 @@
+package top.sanscraft.trappedtnt.tracking;
+
+import org.bukkit.World;
+import top.sanscraft.trappedtnt.storage.TrapRecord;
+import top.sanscraft.trappedtnt.utils.BlockKeys;
+import top.sanscraft.trappedtnt.utils.LongObjectMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Armed traps kept as packed records instead of primed TNT entities.
+ * Each trap is a slot in per-world parallel primitive arrays holding its packed block
+ * position, placer and arm tick, filed under the same cells as {@link TrapIndex}; nothing
+ * ticks and nothing is sent to clients until the trap is taken out to be primed.
+ * Thread-safe; every call takes the store's lock.
+ */
+public class VirtualTrapStore {
+    
+    private final Map<UUID, WorldTraps> worlds = new HashMap<>();
+    private final TrapCounts counts = new TrapCounts();
+    // Written under the lock, read without it on the proximity hot path
+    private volatile int size;
+    
+    /**
+     * Adds a trap, replacing any trap already at the block
+     * @param placer The placing player, or null if unknown
+     * @param armTick The scheduler tick the trap was armed in
+     */
+    public synchronized void add(UUID worldId, int x, int y, int z, UUID placer, long armTick, long armedAtMillis, int fuseTicks) {
+        long position = BlockKeys.pack(x, y, z);
+        long cellKey = TrapIndex.cellKey(x, z);
+        WorldTraps world = worlds.get(worldId);
+        if (world != null) {
+            int existing = world.find(position, cellKey);
+            if (existing >= 0) {
+                release(worldId, world, existing);
+            }
+        }
+        
+        worlds.computeIfAbsent(worldId, id -> new WorldTraps()).insert(position, cellKey, placer, armTick, armedAtMillis, fuseTicks);
+        counts.add(worldId, x, z, placer);
+        size++;
+    }
+    
+    /**
+     * Removes the trap at a block if it is still the one armed in the given tick, so a trap
+     * re-armed at the same block is not taken by an older fuse
+     * @return the removed trap, or null if there was none
+     */
+    public synchronized TrapRecord take(UUID worldId, int x, int y, int z, long armTick) {
+        WorldTraps world = worlds.get(worldId);
+        if (world == null) {
+            return null;
+        }
+        int slot = world.find(BlockKeys.pack(x, y, z), TrapIndex.cellKey(x, z));
+        if (slot < 0 || world.armTicks[slot] != armTick) {
+            return null;
+        }
+        return release(worldId, world, slot);
+    }
+    
+    /**
+     * Removes the trap at a block, whenever it was armed
+     * @return the removed trap, or null if there was none
+     */
+    public synchronized TrapRecord take(UUID worldId, int x, int y, int z) {
+        WorldTraps world = worlds.get(worldId);
+        if (world == null) {
+            return null;
+        }
+        int slot = world.find(BlockKeys.pack(x, y, z), TrapIndex.cellKey(x, z));
+        return slot >= 0 ? release(worldId, world, slot) : null;
+    }
+    
+    /**
+     * Moves the trap at a block to another block, re-armed in the given tick with the fuse it
+     * has left, so fuses scheduled for its old block no longer find it
+     * @return the moved trap with the fuse it has left, or null if there was no trap at the block
+     */
+    public synchronized TrapRecord move(UUID worldId, int fromX, int fromY, int fromZ, int toX, int toY, int toZ, long currentTick) {
+        WorldTraps world = worlds.get(worldId);
+        if (world == null) {
+            return null;
+        }
+        int slot = world.find(BlockKeys.pack(fromX, fromY, fromZ), TrapIndex.cellKey(fromX, fromZ));
+        if (slot < 0) {
+            return null;
+        }
+        
+        int left = (int) Math.max(1L, world.fuses[slot] - (currentTick - world.armTicks[slot]));
+        long armedAt = world.armedAt[slot];
+        UUID placer = release(worldId, world, slot).getPlacer();
+        add(worldId, toX, toY, toZ, placer, currentTick, armedAt, left);
+        return new TrapRecord(TrapRecord.virtualId(worldId, toX, toY, toZ), worldId, toX, toY, toZ, placer, armedAt, left);
+    }
+    
+    /**
+     * Checks if the trap armed in the given tick is still at a block
+     */
+    public synchronized boolean contains(UUID worldId, int x, int y, int z, long armTick) {
+        WorldTraps world = worlds.get(worldId);
+        if (world == null) {
+            return false;
+        }
+        int slot = world.find(BlockKeys.pack(x, y, z), TrapIndex.cellKey(x, z));
+        return slot >= 0 && world.armTicks[slot] == armTick;
+    }
+    
+    /**
+     * Removes the first trap whose primed TNT would be within the radius of the given point
+     * @return the removed trap, or null if none is in range
+     */
+    public synchronized TrapRecord takeWithin(World world, double x, double y, double z, double radius) {
+        UUID worldId = world.getUID();
+        WorldTraps traps = worlds.get(worldId);
+        if (traps == null) {
+            return null;
+        }
+        
+        int minCellX = (int) Math.floor(x - radius) >> TrapIndex.CELL_SHIFT;
+        int maxCellX = (int) Math.floor(x + radius) >> TrapIndex.CELL_SHIFT;
+        int minCellZ = (int) Math.floor(z - radius) >> TrapIndex.CELL_SHIFT;
+        int maxCellZ = (int) Math.floor(z + radius) >> TrapIndex.CELL_SHIFT;
+        double radiusSquared = radius * radius;
+        
+        for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+            for (int cellZ = minCellZ; cellZ <= maxCellZ; cellZ++) {
+                int[] bucket = traps.cells.get(TrapIndex.cellKey(cellX << TrapIndex.CELL_SHIFT, cellZ << TrapIndex.CELL_SHIFT));
+                if (bucket == null) {
+                    continue;
+                }
+                
+                for (int i = 1, n = bucket[0]; i <= n; i++) {
+                    int slot = bucket[i];
+                    long position = traps.positions[slot];
+                    // Primed TNT sits on the centre of the block's floor
+                    double dx = BlockKeys.unpackX(position) + 0.5 - x;
+                    double dy = BlockKeys.unpackY(position) - y;
+                    double dz = BlockKeys.unpackZ(position) + 0.5 - z;
+                    if (dx * dx + dy * dy + dz * dz <= radiusSquared) {
+                        return release(worldId, traps, slot);
+                    }
+                }
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Checks if any trap is filed under a cell or the eight cells around it
+     */
+    public synchronized boolean hasTrapsAround(UUID worldId, int cellX, int cellZ) {
+        WorldTraps traps = worlds.get(worldId);
+        if (traps == null) {
+            return false;
+        }
+        for (int x = cellX - 1; x <= cellX + 1; x++) {
+            for (int z = cellZ - 1; z <= cellZ + 1; z++) {
+                if (traps.cells.containsKey(TrapIndex.cellKey(x << TrapIndex.CELL_SHIFT, z << TrapIndex.CELL_SHIFT))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Copies every trap for persisting, with the fuse it has left at the given tick
+     */
+    public synchronized List<TrapRecord> snapshot(long currentTick) {
+        List<TrapRecord> records = new ArrayList<>(size);
+        for (Map.Entry<UUID, WorldTraps> entry : worlds.entrySet()) {
+            WorldTraps world = entry.getValue();
+            world.cells.forEachValue(bucket -> {
+                for (int i = 1, n = bucket[0]; i <= n; i++) {
+                    int slot = bucket[i];
+                    int left = (int) Math.max(1L, world.fuses[slot] - (currentTick - world.armTicks[slot]));
+                    records.add(world.toRecord(entry.getKey(), slot, left));
+                }
+            });
+        }
+        return records;
+    }
+    
+    /**
+     * Gets the number of virtual traps
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Gets the number of virtual traps in each world that has any
+     */
+    public synchronized Map<UUID, Integer> getWorldCounts() {
+        Map<UUID, Integer> worldCounts = new HashMap<>();
+        for (Map.Entry<UUID, WorldTraps> entry : worlds.entrySet()) {
+            worldCounts.put(entry.getKey(), entry.getValue().size);
+        }
+        return worldCounts;
+    }
+    
+    /**
+     * Gets the number of virtual traps in a chunk
+     */
+    public synchronized int getChunkCount(UUID worldId, int chunkX, int chunkZ) {
+        return counts.getChunkCount(worldId, chunkX, chunkZ);
+    }
+    
+    /**
+     * Gets the number of virtual traps placed by a player
+     */
+    public synchronized int getPlacerCount(UUID placer) {
+        return counts.getPlacerCount(placer);
+    }
+    
+    public synchronized void clear() {
+        worlds.clear();
+        counts.clear();
+        size = 0;
+    }
+    
+    private TrapRecord release(UUID worldId, WorldTraps world, int slot) {
+        TrapRecord record = world.toRecord(worldId, slot, world.fuses[slot]);
+        world.delete(slot);
+        counts.remove(worldId, record.getX(), record.getZ(), record.getPlacer());
+        size--;
+        if (world.size == 0) {
+            worlds.remove(worldId);
+        }
+        return record;
+    }
+    
+    /**
+     * The traps of one world: parallel arrays indexed by slot, and cell buckets of slots.
+     * A bucket is an int array holding its length followed by the slots.
+     */
+    private static final class WorldTraps {
+        private final LongObjectMap<int[]> cells = new LongObjectMap<>();
+        private long[] positions = new long[16];
+        private long[] placersMost = new long[16];
+        private long[] placersLeast = new long[16];
+        private long[] armTicks = new long[16];
+        private long[] armedAt = new long[16];
+        private int[] fuses = new int[16];
+        private int[] freeSlots = new int[16];
+        private int freeCount;
+        private int highWater;
+        private int size;
+        
+        int find(long position, long cellKey) {
+            int[] bucket = cells.get(cellKey);
+            if (bucket == null) {
+                return -1;
+            }
+            for (int i = 1, n = bucket[0]; i <= n; i++) {
+                if (positions[bucket[i]] == position) {
+                    return bucket[i];
+                }
+            }
+            return -1;
+        }
+        
+        void insert(long position, long cellKey, UUID placer, long armTick, long armedAtMillis, int fuseTicks) {
+            int slot;
+            if (freeCount > 0) {
+                slot = freeSlots[--freeCount];
+            } else {
+                if (highWater == positions.length) {
+                    grow(positions.length * 2);
+                }
+                slot = highWater++;
+            }
+            positions[slot] = position;
+            placersMost[slot] = placer != null ? placer.getMostSignificantBits() : 0L;
+            placersLeast[slot] = placer != null ? placer.getLeastSignificantBits() : 0L;
+            armTicks[slot] = armTick;
+            armedAt[slot] = armedAtMillis;
+            fuses[slot] = fuseTicks;
+            
+            int[] bucket = cells.get(cellKey);
+            if (bucket == null) {
+                bucket = new int[4];
+                cells.put(cellKey, bucket);
+            } else if (bucket[0] + 1 == bucket.length) {
+                int[] grown = new int[bucket.length * 2];
+                System.arraycopy(bucket, 0, grown, 0, bucket.length);
+                bucket = grown;
+                cells.put(cellKey, bucket);
+            }
+            bucket[++bucket[0]] = slot;
+            size++;
+        }
+        
+        void delete(int slot) {
+            long position = positions[slot];
+            long cellKey = TrapIndex.cellKey(BlockKeys.unpackX(position), BlockKeys.unpackZ(position));
+            int[] bucket = cells.get(cellKey);
+            for (int i = 1, n = bucket[0]; i <= n; i++) {
+                if (bucket[i] == slot) {
+                    bucket[i] = bucket[n];
+                    bucket[0]--;
+                    break;
+                }
+            }
+            if (bucket[0] == 0) {
+                cells.remove(cellKey);
+            }
+            
+            if (freeCount == freeSlots.length) {
+                int[] grown = new int[freeSlots.length * 2];
+                System.arraycopy(freeSlots, 0, grown, 0, freeCount);
+                freeSlots = grown;
+            }
+            freeSlots[freeCount++] = slot;
+            size--;
+        }
+        
+        TrapRecord toRecord(UUID worldId, int slot, int fuseTicks) {
+            long position = positions[slot];
+            UUID placer = placersMost[slot] == 0L && placersLeast[slot] == 0L ? null : new UUID(placersMost[slot], placersLeast[slot]);
+            int x = BlockKeys.unpackX(position);
+            int y = BlockKeys.unpackY(position);
+            int z = BlockKeys.unpackZ(position);
+            return new TrapRecord(TrapRecord.virtualId(worldId, x, y, z), worldId, x, y, z, placer, armedAt[slot], fuseTicks);
+        }
+        
+        private void grow(int capacity) {
+            positions = Arrays.copyOf(positions, capacity);
+            placersMost = Arrays.copyOf(placersMost, capacity);
+            placersLeast = Arrays.copyOf(placersLeast, capacity);
+            armTicks = Arrays.copyOf(armTicks, capacity);
+            armedAt = Arrays.copyOf(armedAt, capacity);
+            fuses = Arrays.copyOf(fuses, capacity);
+        }
+    }
+}
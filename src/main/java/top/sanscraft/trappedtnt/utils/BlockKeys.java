@@ -0,0 +1,27 @@
+package top.sanscraft.trappedtnt.utils;
+
+/**
+ * Packs block coordinates into a single long: 26 bits of x, 26 bits of z and 12 bits of y
+ */
+public final class BlockKeys {
+
+    private BlockKeys() {
+    }
+
+    public static long pack(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+    }
+
+    public static int unpackX(long key) {
+        return (int) (key >> 38);
+    }
+
+    public static int unpackY(long key) {
+        // Sign-extend the low 12 bits
+        return (int) (key << 52 >> 52);
+    }
+
+    public static int unpackZ(long key) {
+        return (int) (key << 26 >> 38);
+    }
+}
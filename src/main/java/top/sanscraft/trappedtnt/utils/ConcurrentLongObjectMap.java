@@ -0,0 +1,99 @@
+package top.sanscraft.trappedtnt.utils;
+
+/**
+ * Thread-safe map with primitive long keys, striped over several {@link LongObjectMap}s.
+ * Each stripe has its own lock, so threads working on different keys rarely contend,
+ * and with a single stripe it costs one uncontended lock per call.
+ * Null values are not supported.
+ */
+public class ConcurrentLongObjectMap<V> {
+    
+    private final LongObjectMap<V>[] stripes;
+    private final int mask;
+    
+    /**
+     * @param stripeCount Number of independently locked stripes, rounded up to a power of two
+     */
+    @SuppressWarnings("unchecked")
+    public ConcurrentLongObjectMap(int stripeCount) {
+        int count = stripeCount <= 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1;
+        this.stripes = new LongObjectMap[count];
+        this.mask = count - 1;
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new LongObjectMap<>();
+        }
+    }
+    
+    /**
+     * Gets the value mapped to the key, or null if there is none
+     */
+    public V get(long key) {
+        LongObjectMap<V> stripe = stripeOf(key);
+        synchronized (stripe) {
+            return stripe.get(key);
+        }
+    }
+    
+    /**
+     * Maps the key to the value
+     * @return the previous value, or null if the key was absent
+     */
+    public V put(long key, V value) {
+        LongObjectMap<V> stripe = stripeOf(key);
+        synchronized (stripe) {
+            return stripe.put(key, value);
+        }
+    }
+    
+    /**
+     * Removes the key
+     * @return the removed value, or null if the key was absent
+     */
+    public V remove(long key) {
+        LongObjectMap<V> stripe = stripeOf(key);
+        synchronized (stripe) {
+            return stripe.remove(key);
+        }
+    }
+    
+    /**
+     * Removes the key only while it is still mapped to the given value
+     * @return true if the entry was removed
+     */
+    public boolean remove(long key, V value) {
+        LongObjectMap<V> stripe = stripeOf(key);
+        synchronized (stripe) {
+            if (stripe.get(key) != value) {
+                return false;
+            }
+            stripe.remove(key);
+            return true;
+        }
+    }
+    
+    /**
+     * Gets the number of entries; a moving target while other threads write
+     */
+    public int size() {
+        int size = 0;
+        for (LongObjectMap<V> stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+    
+    public void clear() {
+        for (LongObjectMap<V> stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+    
+    private LongObjectMap<V> stripeOf(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return stripes[(int) (h >>> 40) & mask];
+    }
+}
@@ -0,0 +1,170 @@
+package top.sanscraft.trappedtnt.utils;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Open-addressing hash map from primitive long keys to UUIDs kept as two longs.
+ * Neither lookups nor updates allocate; only {@link #get(long)} builds a UUID.
+ * A null value is stored as zero bits and read back as null. Not thread-safe.
+ */
+public class LongUuidMap {
+    
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.6f;
+    
+    private long[] keys;
+    private long[] mostBits;
+    private long[] leastBits;
+    private boolean[] used;
+    private int mask;
+    private int size;
+    private int resizeThreshold;
+    
+    public LongUuidMap() {
+        allocate(DEFAULT_CAPACITY);
+    }
+    
+    /**
+     * Checks if the key is present
+     */
+    public boolean containsKey(long key) {
+        return slotOfKey(key) >= 0;
+    }
+    
+    /**
+     * Gets the UUID mapped to the key, or null if there is none or it was stored as null
+     */
+    public UUID get(long key) {
+        int slot = slotOfKey(key);
+        if (slot < 0 || (mostBits[slot] == 0L && leastBits[slot] == 0L)) {
+            return null;
+        }
+        return new UUID(mostBits[slot], leastBits[slot]);
+    }
+    
+    /**
+     * Maps the key to the UUID
+     * @param value The UUID, may be null
+     * @return true if the key was absent
+     */
+    public boolean put(long key, UUID value) {
+        long most = value != null ? value.getMostSignificantBits() : 0L;
+        long least = value != null ? value.getLeastSignificantBits() : 0L;
+        
+        int slot = slotOf(key);
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                mostBits[slot] = most;
+                leastBits[slot] = least;
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        
+        keys[slot] = key;
+        mostBits[slot] = most;
+        leastBits[slot] = least;
+        used[slot] = true;
+        if (++size > resizeThreshold) {
+            rehash(keys.length << 1);
+        }
+        return true;
+    }
+    
+    /**
+     * Removes the key
+     * @return true if the key was present
+     */
+    public boolean remove(long key) {
+        int slot = slotOfKey(key);
+        if (slot < 0) {
+            return false;
+        }
+        shiftBack(slot);
+        size--;
+        return true;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    public void clear() {
+        if (size == 0) {
+            return;
+        }
+        Arrays.fill(used, false);
+        size = 0;
+    }
+    
+    private int slotOfKey(long key) {
+        int slot = slotOf(key);
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+    
+    private int slotOf(long key) {
+        // Fibonacci hashing spreads packed coordinates whose low bits are correlated
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+    
+    /**
+     * Backward-shift deletion keeps probe chains intact without tombstones
+     */
+    private void shiftBack(int slot) {
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (used[next]) {
+            int ideal = slotOf(keys[next]);
+            // Move the entry into the hole if the hole lies on its probe path
+            if (((next - ideal) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                mostBits[hole] = mostBits[next];
+                leastBits[hole] = leastBits[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        used[hole] = false;
+    }
+    
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        mostBits = new long[capacity];
+        leastBits = new long[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+    
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldMost = mostBits;
+        long[] oldLeast = leastBits;
+        boolean[] oldUsed = used;
+        allocate(capacity);
+        for (int i = 0; i < oldUsed.length; i++) {
+            if (oldUsed[i]) {
+                int slot = slotOf(oldKeys[i]);
+                while (used[slot]) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                mostBits[slot] = oldMost[i];
+                leastBits[slot] = oldLeast[i];
+                used[slot] = true;
+            }
+        }
+    }
+}
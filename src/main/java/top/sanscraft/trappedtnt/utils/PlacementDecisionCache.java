@@ -0,0 +1,122 @@
+package top.sanscraft.trappedtnt.utils;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded, direct-mapped cache of allow/deny decisions keyed by world and block position.
+ * Each key maps to one slot, so a new decision simply overwrites whatever shared its slot.
+ * Entries expire after a time-to-live, and {@link #invalidate()} drops everything in O(1).
+ * Thread-safe; each call takes one lock, which is uncontended off region-threaded servers.
+ */
+public class PlacementDecisionCache {
+
+    /** Returned by {@link #lookup} when no fresh decision is cached */
+    public static final int UNKNOWN = -1;
+    public static final int DENY = 0;
+    public static final int ALLOW = 1;
+
+    private final int mask;
+    private final long ttlNanos;
+    private final UUID[] worlds;
+    private final long[] positions;
+    private final long[] expiries;
+    private final int[] generations;
+    private final boolean[] decisions;
+    private int generation = 1;
+    // Nothing is stored until System.nanoTime() passes this, while holding is set
+    private boolean holding;
+    private long holdUntil;
+    private long hits;
+    private long misses;
+
+    /**
+     * @param capacity Maximum number of cached decisions, rounded up to a power of two
+     * @param ttlSeconds How long a decision stays valid, 0 to keep it until invalidated
+     */
+    public PlacementDecisionCache(int capacity, long ttlSeconds) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.mask = size - 1;
+        this.ttlNanos = ttlSeconds > 0 ? TimeUnit.SECONDS.toNanos(ttlSeconds) : Long.MAX_VALUE;
+        this.worlds = new UUID[size];
+        this.positions = new long[size];
+        this.expiries = new long[size];
+        this.generations = new int[size];
+        this.decisions = new boolean[size];
+    }
+
+    /**
+     * Looks up a cached decision
+     * @return {@link #ALLOW}, {@link #DENY} or {@link #UNKNOWN}
+     */
+    public synchronized int lookup(UUID worldId, int x, int y, int z) {
+        long position = BlockKeys.pack(x, y, z);
+        int slot = slotOf(worldId, position);
+        if (generations[slot] == generation && positions[slot] == position && worldId.equals(worlds[slot])
+                && (ttlNanos == Long.MAX_VALUE || System.nanoTime() - expiries[slot] < 0)) {
+            hits++;
+            return decisions[slot] ? ALLOW : DENY;
+        }
+        misses++;
+        return UNKNOWN;
+    }
+
+    /**
+     * Stores a decision, replacing whatever occupied its slot
+     */
+    public synchronized void store(UUID worldId, int x, int y, int z, boolean allowed) {
+        if (holding) {
+            if (System.nanoTime() - holdUntil < 0) {
+                return;
+            }
+            holding = false;
+        }
+        long position = BlockKeys.pack(x, y, z);
+        int slot = slotOf(worldId, position);
+        worlds[slot] = worldId;
+        positions[slot] = position;
+        decisions[slot] = allowed;
+        generations[slot] = generation;
+        if (ttlNanos != Long.MAX_VALUE) {
+            expiries[slot] = System.nanoTime() + ttlNanos;
+        }
+    }
+
+    /**
+     * Drops every cached decision
+     */
+    public synchronized void invalidate() {
+        generation++;
+    }
+
+    /**
+     * Drops every cached decision and caches nothing new for a while, for region changes
+     * that are still being applied in the background when this is called
+     * @param holdNanos How long no decision is cached
+     */
+    public synchronized void invalidate(long holdNanos) {
+        generation++;
+        long until = System.nanoTime() + holdNanos;
+        if (!holding || until - holdUntil > 0) {
+            holdUntil = until;
+        }
+        holding = true;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    private int slotOf(UUID worldId, long position) {
+        long h = (position ^ worldId.getLeastSignificantBits()) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
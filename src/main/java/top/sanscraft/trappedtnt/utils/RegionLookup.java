@@ -0,0 +1,20 @@
+package top.sanscraft.trappedtnt.utils;
+
+import org.bukkit.Location;
+
+import java.util.Set;
+
+/**
+ * Answers whether a location lies in one of a set of protection regions.
+ * Kept separate from {@link WorldGuardIntegration} so the placement check and its
+ * cache can be exercised without WorldGuard.
+ */
+public interface RegionLookup {
+    
+    /**
+     * Checks if a location lies in at least one of the given regions
+     * @param regionIds Lower-case region ids
+     * @return true if it does, or if the location's world has no regions at all
+     */
+    boolean isInAnyRegion(Location location, Set<String> regionIds);
+}
@@ -1,7 +1,10 @@
 package top.sanscraft.trappedtnt.utils;
 
+import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
+import org.bukkit.entity.Entity;
+import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.persistence.PersistentDataContainer;
@@ -9,15 +12,32 @@ import org.bukkit.persistence.PersistentDataType;
 import org.bukkit.NamespacedKey;
 import org.bukkit.plugin.Plugin;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.List;
+import java.util.UUID;
 
 public class TrappedTntUtils {
     
     private final NamespacedKey trappedTntKey;
+    private final NamespacedKey placerKey;
+    private final ItemStack canonicalItem;
     
     public TrappedTntUtils(Plugin plugin) {
         this.trappedTntKey = new NamespacedKey(plugin, "trapped_tnt");
+        this.placerKey = new NamespacedKey(plugin, "placer");
+        this.canonicalItem = toServerStack(createTrappedTnt(1));
+    }
+    
+    /**
+     * Round-trips an item through an inventory to get the server's own stack implementation,
+     * whose similarity check compares item tags directly instead of cloning both metas
+     */
+    private static ItemStack toServerStack(ItemStack item) {
+        Inventory inventory = Bukkit.createInventory(null, 9);
+        inventory.setItem(0, item);
+        ItemStack stack = inventory.getItem(0);
+        return stack != null ? stack : item;
     }
     
     /**
@@ -48,13 +68,21 @@ public class TrappedTntUtils {
     }
     
     /**
-     * Checks if an item is a trapped TNT
+     * Checks if an item is a trapped TNT.
+     * Runs on every block placement, so items are rejected or matched without cloning
+     * their meta wherever possible; only customised TNT falls back to reading the PDC.
      */
     public boolean isTrappedTnt(ItemStack item) {
-        if (item == null || item.getType() != Material.TNT) {
+        if (item == null || item.getType() != Material.TNT || !item.hasItemMeta()) {
             return false;
         }
         
+        // Unmodified stacks from createTrappedTnt carry exactly the canonical item's tag
+        if (canonicalItem.isSimilar(item)) {
+            return true;
+        }
+        
+        // Renamed or otherwise edited stacks are still marked in their persistent data
         ItemMeta meta = item.getItemMeta();
         if (meta == null) {
             return false;
@@ -64,6 +92,43 @@ public class TrappedTntUtils {
         return dataContainer.has(trappedTntKey, PersistentDataType.BYTE);
     }
     
+    /**
+     * Tags a primed TNT entity as trapped TNT, storing the placer as a 16-byte UUID.
+     * The tag is saved with the entity, so it survives chunk unloads and restarts.
+     */
+    public void markTrappedTnt(Entity entity, UUID placer) {
+        PersistentDataContainer dataContainer = entity.getPersistentDataContainer();
+        dataContainer.set(trappedTntKey, PersistentDataType.BYTE, (byte) 1);
+        dataContainer.set(placerKey, PersistentDataType.BYTE_ARRAY, toBytes(placer));
+    }
+    
+    /**
+     * Checks if an entity was tagged as trapped TNT
+     */
+    public boolean isTrappedTntEntity(Entity entity) {
+        return entity.getPersistentDataContainer().has(trappedTntKey, PersistentDataType.BYTE);
+    }
+    
+    /**
+     * Gets the player who placed a trapped TNT entity
+     * @return the placer, or null if none was stored
+     */
+    public UUID getPlacer(Entity entity) {
+        byte[] bytes = entity.getPersistentDataContainer().get(placerKey, PersistentDataType.BYTE_ARRAY);
+        if (bytes == null || bytes.length != 16) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+    
+    private static byte[] toBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+            .putLong(uuid.getMostSignificantBits())
+            .putLong(uuid.getLeastSignificantBits())
+            .array();
+    }
+    
     /**
      * Gets the NamespacedKey used for trapped TNT identification
      */
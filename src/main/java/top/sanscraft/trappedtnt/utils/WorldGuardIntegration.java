@@ -7,18 +7,61 @@ import com.sk89q.worldguard.protection.managers.RegionManager;
 import com.sk89q.worldguard.protection.regions.RegionContainer;
 import com.sk89q.worldguard.protection.regions.ProtectedRegion;
 import org.bukkit.Location;
+import org.bukkit.World;
 import org.bukkit.plugin.Plugin;
 
-import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 public class WorldGuardIntegration {
     
     private final Plugin plugin;
     private final boolean worldGuardEnabled;
+    private final RegionLookup regionLookup;
+    private PlacementDecisionCache decisionCache = new PlacementDecisionCache(4096, 30);
     
     public WorldGuardIntegration(Plugin plugin) {
+        this(plugin, plugin.getServer().getPluginManager().getPlugin("WorldGuard") != null ? new WorldGuardRegionLookup() : null);
+    }
+    
+    /**
+     * @param regionLookup Where placement regions are looked up, or null if WorldGuard is not available
+     */
+    public WorldGuardIntegration(Plugin plugin, RegionLookup regionLookup) {
         this.plugin = plugin;
-        this.worldGuardEnabled = plugin.getServer().getPluginManager().getPlugin("WorldGuard") != null;
+        this.regionLookup = regionLookup;
+        this.worldGuardEnabled = regionLookup != null;
+    }
+    
+    /**
+     * Replaces the placement decision cache, dropping every cached decision
+     * @param capacity Maximum number of cached decisions
+     * @param ttlSeconds How long a decision stays valid, 0 to keep it until invalidated
+     */
+    public void configureCache(int capacity, long ttlSeconds) {
+        decisionCache = new PlacementDecisionCache(capacity, ttlSeconds);
+    }
+    
+    /**
+     * Drops every cached placement decision, e.g. after regions were changed
+     */
+    public void invalidateCache() {
+        decisionCache.invalidate();
+    }
+    
+    /**
+     * Drops every cached placement decision and stops caching for a while, for region
+     * changes WorldGuard applies asynchronously after the command that started them
+     */
+    public void invalidateCache(long holdSeconds) {
+        decisionCache.invalidate(TimeUnit.SECONDS.toNanos(holdSeconds));
+    }
+    
+    /**
+     * Gets the placement decision cache, for reporting hit/miss counters
+     */
+    public PlacementDecisionCache getDecisionCache() {
+        return decisionCache;
     }
     
     /**
@@ -31,10 +74,10 @@ public class WorldGuardIntegration {
     /**
      * Checks if trapped TNT can be placed at the given location
      * @param location The location to check
-     * @param allowedRegions List of allowed region names from config
+     * @param allowedRegions Lower-case ids of the allowed regions from config
      * @return true if placement is allowed, false otherwise
      */
-    public boolean canPlaceTrappedTnt(Location location, List<String> allowedRegions) {
+    public boolean canPlaceTrappedTnt(Location location, Set<String> allowedRegions) {
         // If WorldGuard is not available, allow placement globally
         if (!worldGuardEnabled) {
             return true;
@@ -45,26 +88,20 @@ public class WorldGuardIntegration {
             return true;
         }
         
+        // Reuse an earlier decision for this block if it is still fresh
+        World world = location.getWorld();
+        int x = location.getBlockX();
+        int y = location.getBlockY();
+        int z = location.getBlockZ();
+        int cached = decisionCache.lookup(world.getUID(), x, y, z);
+        if (cached != PlacementDecisionCache.UNKNOWN) {
+            return cached == PlacementDecisionCache.ALLOW;
+        }
+        
         try {
-            RegionContainer container = WorldGuard.getInstance().getPlatform().getRegionContainer();
-            RegionManager regionManager = container.get(BukkitAdapter.adapt(location.getWorld()));
-            
-            if (regionManager == null) {
-                return true; // No regions in this world, allow placement
-            }
-            
-            // Get all regions at this location
-            ApplicableRegionSet regions = regionManager.getApplicableRegions(BukkitAdapter.asBlockVector(location));
-            
-            // Check if any of the regions at this location are in the allowed list
-            for (ProtectedRegion region : regions) {
-                if (allowedRegions.contains(region.getId())) {
-                    return true;
-                }
-            }
-            
-            // If we have allowed regions configured but none match, deny placement
-            return false;
+            boolean allowed = regionLookup.isInAnyRegion(location, allowedRegions);
+            decisionCache.store(world.getUID(), x, y, z, allowed);
+            return allowed;
             
         } catch (Exception e) {
             plugin.getLogger().warning("Error checking WorldGuard regions: " + e.getMessage());
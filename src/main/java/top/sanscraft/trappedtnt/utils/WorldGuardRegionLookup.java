@@ -0,0 +1,40 @@
+package top.sanscraft.trappedtnt.utils;
+
+import com.sk89q.worldedit.bukkit.BukkitAdapter;
+import com.sk89q.worldguard.WorldGuard;
+import com.sk89q.worldguard.protection.ApplicableRegionSet;
+import com.sk89q.worldguard.protection.managers.RegionManager;
+import com.sk89q.worldguard.protection.regions.ProtectedRegion;
+import com.sk89q.worldguard.protection.regions.RegionContainer;
+import org.bukkit.Location;
+
+import java.util.Set;
+
+/**
+ * Region lookup backed by WorldGuard's region managers
+ */
+class WorldGuardRegionLookup implements RegionLookup {
+    
+    @Override
+    public boolean isInAnyRegion(Location location, Set<String> regionIds) {
+        RegionContainer container = WorldGuard.getInstance().getPlatform().getRegionContainer();
+        RegionManager regionManager = container.get(BukkitAdapter.adapt(location.getWorld()));
+        
+        if (regionManager == null) {
+            return true; // No regions in this world, allow placement
+        }
+        
+        // Get all regions at this location
+        ApplicableRegionSet regions = regionManager.getApplicableRegions(BukkitAdapter.asBlockVector(location));
+        
+        // Check if any of the regions at this location are in the allowed set
+        for (ProtectedRegion region : regions) {
+            if (regionIds.contains(region.getId())) {
+                return true;
+            }
+        }
+        
+        // If we have allowed regions configured but none match, deny placement
+        return false;
+    }
+}
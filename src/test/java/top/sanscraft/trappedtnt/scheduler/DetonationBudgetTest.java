@@ -0,0 +1,84 @@
+package top.sanscraft.trappedtnt.scheduler;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DetonationBudgetTest {
+    
+    @Test
+    void noLimitNeverDefers() {
+        DetonationBudget budget = new DetonationBudget();
+        for (int i = 0; i < 100; i++) {
+            assertEquals(0, budget.reserve(10L, 0));
+        }
+    }
+    
+    @Test
+    void fullTickDefersToTheNextOne() {
+        DetonationBudget budget = new DetonationBudget();
+        assertEquals(0, budget.reserve(10L, 2));
+        assertEquals(0, budget.reserve(10L, 2));
+        assertEquals(1, budget.reserve(10L, 2));
+        assertEquals(1, budget.reserve(10L, 2));
+        assertEquals(2, budget.reserve(10L, 2));
+        
+        // The next tick already holds two deferred detonations
+        assertEquals(1, budget.reserve(11L, 2));
+        assertEquals(2, budget.reserve(11L, 2));
+    }
+    
+    @Test
+    void oldTicksAreReused() {
+        DetonationBudget budget = new DetonationBudget();
+        assertEquals(0, budget.reserve(10L, 1));
+        assertEquals(1, budget.reserve(10L, 1));
+        
+        // Same ring slot as tick 10, one lap later
+        assertEquals(0, budget.reserve(74L, 1));
+    }
+    
+    @Test
+    void fullHorizonGoesOffAtTheFarEnd() {
+        DetonationBudget budget = new DetonationBudget();
+        for (int i = 0; i < 64; i++) {
+            assertEquals(i, budget.reserve(0L, 1));
+        }
+        assertEquals(63, budget.reserve(0L, 1));
+    }
+    
+    @Test
+    void fuseGoesOffOnTheReservedTick() {
+        // Primed TNT counts down before checking, so fuses 0 and 1 both go off on its next tick
+        assertEquals(0, DetonationBudget.fuseTicks(0));
+        assertEquals(2, DetonationBudget.fuseTicks(1));
+        assertEquals(3, DetonationBudget.fuseTicks(2));
+    }
+    
+    @Test
+    void deferredSlotsDoNotShareATickWithUndeferredOnes() {
+        DetonationBudget budget = new DetonationBudget();
+        int[] explodeAfter = new int[6];
+        for (int i = 0; i < explodeAfter.length; i++) {
+            explodeAfter[i] = ticksUntilExplosion(DetonationBudget.fuseTicks(budget.reserve(5L, 2)));
+        }
+        assertEquals(1, explodeAfter[0]);
+        assertEquals(1, explodeAfter[1]);
+        assertEquals(2, explodeAfter[2]);
+        assertEquals(2, explodeAfter[3]);
+        assertEquals(3, explodeAfter[4]);
+        assertEquals(3, explodeAfter[5]);
+    }
+    
+    /**
+     * Ticks primed TNT with a fuse takes to go off: it decrements the fuse, then explodes at 0 or below
+     */
+    private static int ticksUntilExplosion(int fuse) {
+        int ticks = 0;
+        do {
+            fuse--;
+            ticks++;
+        } while (fuse > 0);
+        return ticks;
+    }
+}